@@ -0,0 +1,167 @@
+package com.kanban.adapter;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.kanban.utils.TaskStatus;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hand-written JSON codec for {@link Task}, {@link Subtask} and {@link Epic}.
+ * Produces the same JSON as reflective Gson did: fields of subclass go first, empty times and durations are "".
+ */
+public class TaskAdapter extends TypeAdapter<Task> {
+
+    private final Class<?> type;
+
+    public TaskAdapter(Class<?> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        write(out, task, null);
+    }
+
+    /**
+     * Writes only the given fields of the task, null set means all fields.
+     * Subtasks of an epic are always written in full.
+     */
+    public static void write(JsonWriter out, Task task, Set<String> fields) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        switch (task) {
+            case Subtask subtask -> {
+                if (subtask.getEpicId() != null && includes(fields, "epicId")) {
+                    out.name("epicId").value(subtask.getEpicId());
+                }
+            }
+            case Epic epic -> {
+                if (epic.getSubTasks() != null && includes(fields, "subTasks")) {
+                    out.name("subTasks").beginArray();
+                    for (Subtask subtask : epic.getSubTasks()) {
+                        write(out, subtask, null);
+                    }
+                    out.endArray();
+                }
+                if (includes(fields, "endTime")) {
+                    writeTime(out, "endTime", epic.getEndTime());
+                }
+            }
+            default -> {
+            }
+        }
+        if (task.getName() != null && includes(fields, "name")) {
+            out.name("name").value(task.getName());
+        }
+        if (task.getDescription() != null && includes(fields, "description")) {
+            out.name("description").value(task.getDescription());
+        }
+        if (task.getStatus() != null && includes(fields, "status")) {
+            out.name("status").value(task.getStatus().name());
+        }
+        if (task.getId() != null && includes(fields, "id")) {
+            out.name("id").value(task.getId());
+        }
+        if (includes(fields, "duration")) {
+            out.name("duration");
+            if (task.getDuration() == null) {
+                out.value("");
+            } else {
+                out.value(task.getDuration());
+            }
+        }
+        if (includes(fields, "startTime")) {
+            writeTime(out, "startTime", task.getStartTime());
+        }
+        out.endObject();
+    }
+
+    private static boolean includes(Set<String> fields, String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        return read(in, type);
+    }
+
+    private Task read(JsonReader in, Class<?> targetType) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String name = null;
+        String description = null;
+        TaskStatus status = null;
+        Integer id = null;
+        Integer epicId = null;
+        Long duration = null;
+        LocalDateTime startTime = null;
+        Set<Subtask> subtasks = new HashSet<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = in.nextString();
+                case "description" -> description = in.nextString();
+                case "status" -> status = TaskStatus.valueOf(in.nextString());
+                case "id" -> id = in.nextInt();
+                case "epicId" -> epicId = in.nextInt();
+                case "duration" -> {
+                    String value = in.nextString();
+                    duration = value.isEmpty() ? null : Long.parseLong(value);
+                }
+                case "startTime" -> startTime = readTime(in);
+                case "subTasks" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        Subtask subtask = (Subtask) read(in, Subtask.class);
+                        if (subtask != null) {
+                            subtasks.add(subtask);
+                        }
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (targetType == Epic.class) {
+            Epic epic = new Epic(name, description, status, id);
+            subtasks.forEach(epic::addSubtask);
+            return epic;
+        } else if (targetType == Subtask.class) {
+            return new Subtask(name, description, status, id, epicId, startTime, duration);
+        }
+        return new Task(name, description, status, id, startTime, duration);
+    }
+
+    private static void writeTime(JsonWriter out, String name, LocalDateTime time) throws IOException {
+        out.name(name).value(time == null ? "" : time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    }
+
+    private static LocalDateTime readTime(JsonReader in) throws IOException {
+        String value = in.nextString();
+        return value.isEmpty() ? null : LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+}
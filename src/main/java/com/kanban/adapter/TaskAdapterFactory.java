@@ -0,0 +1,26 @@
+package com.kanban.adapter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+
+/**
+ * Provides {@link TaskAdapter} for task classes, so Gson doesn't use reflection for them.
+ * Serialized task type is chosen by its runtime class, deserialized one by the requested class.
+ */
+public class TaskAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        Class<? super T> rawType = typeToken.getRawType();
+        if (rawType == Task.class || rawType == Subtask.class || rawType == Epic.class) {
+            return (TypeAdapter<T>) new TaskAdapter(rawType);
+        }
+        return null;
+    }
+}
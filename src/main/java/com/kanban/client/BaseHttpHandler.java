@@ -1,10 +1,26 @@
 package com.kanban.client;
 
+import com.google.gson.stream.JsonWriter;
+import com.kanban.adapter.TaskAdapter;
+import com.kanban.controllers.Managers;
+import com.kanban.controllers.TaskManager;
+import com.kanban.exception.ResponseAbortedException;
+import com.kanban.tasks.Task;
+import com.kanban.utils.TaskStatus;
+import com.kanban.utils.TaskType;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
@@ -12,6 +28,8 @@ public abstract class BaseHttpHandler implements HttpHandler {
 
     protected static final int SUCCESS_NO_DATA = 201;
 
+    protected static final int BAD_REQUEST = 400;
+
     protected static final int NOT_FOUND = 404;
 
     protected static final int NOT_ACCEPTABLE = 406;
@@ -24,6 +42,10 @@ public abstract class BaseHttpHandler implements HttpHandler {
 
     private static final String CONTENT_TYPE_VALUE = "application/json;charset=utf-8";
 
+    private static final int ITEMS_PER_CHUNK = 256;
+
+    private static final String NEXT_AFTER_HEADER = "X-Next-After";
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         Integer id = getIdFromPath(exchange.getRequestURI().getPath());
@@ -42,7 +64,13 @@ public abstract class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    /**
+     * If a streamed response has already started, the exchange is aborted instead, see {@link #abort}.
+     */
     protected void sendText(HttpExchange h, String text, int statusCode) throws IOException {
+        if (h.getResponseCode() != -1) {
+            throw new ResponseAbortedException("Response is already started, can't send " + statusCode, null);
+        }
         byte[] resp = text.getBytes(StandardCharsets.UTF_8);
         h.getResponseHeaders().add(CONTENT_TYPE, CONTENT_TYPE_VALUE);
         h.sendResponseHeaders(statusCode, resp.length);
@@ -50,6 +78,109 @@ public abstract class BaseHttpHandler implements HttpHandler {
         h.close();
     }
 
+    /**
+     * Serializes value straight into the response body, without building the whole JSON string first.
+     * Collections are streamed by {@link #sendJsonArray}.
+     */
+    protected void sendJson(HttpExchange h, Object value, int statusCode) throws IOException {
+        if (value instanceof Iterable<?> items) {
+            sendJsonArray(h, items, statusCode);
+            return;
+        }
+        h.getResponseHeaders().add(CONTENT_TYPE, CONTENT_TYPE_VALUE);
+        h.sendResponseHeaders(statusCode, 0);
+        JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8)));
+        try {
+            Managers.getGson().toJson(value, value.getClass(), writer);
+        } catch (RuntimeException e) {
+            abort(e);
+        }
+        writer.close();
+        h.close();
+    }
+
+    /**
+     * Writes items as JSON array one by one while iterating them, flushing a chunk every {@value ITEMS_PER_CHUNK}
+     * items, so memory used by the response doesn't depend on count of items and client gets data earlier.
+     * Items are read while the response is written, so they must not be changed meanwhile:
+     * pass copies, like the ones {@link com.kanban.controllers.ConcurrentTaskManager} returns.
+     */
+    protected void sendJsonArray(HttpExchange h, Iterable<?> items, int statusCode) throws IOException {
+        sendJsonArray(h, items, null, statusCode);
+    }
+
+    /**
+     * Same as {@link #sendJsonArray(HttpExchange, Iterable, int)}, but tasks are written with the given fields only.
+     */
+    protected void sendJsonArray(HttpExchange h, Iterable<?> items, Set<String> fields, int statusCode)
+            throws IOException {
+        h.getResponseHeaders().add(CONTENT_TYPE, CONTENT_TYPE_VALUE);
+        h.sendResponseHeaders(statusCode, 0);
+        JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8)));
+        try {
+            writer.beginArray();
+            int written = 0;
+            for (Object item : items) {
+                if (item == null) {
+                    writer.nullValue();
+                } else if (fields != null && item instanceof Task task) {
+                    TaskAdapter.write(writer, task, fields);
+                } else {
+                    Managers.getGson().toJson(item, item.getClass(), writer);
+                }
+                if (++written % ITEMS_PER_CHUNK == 0) {
+                    writer.flush();
+                }
+            }
+            writer.endArray();
+        } catch (IOException | RuntimeException e) {
+            abort(e);
+        }
+        writer.close();
+        h.close();
+    }
+
+    /**
+     * Fails a response whose headers are already sent. The body is left unfinished, as closing it would end
+     * the chunked stream and the client would take a truncated body as complete. The exception is passed
+     * out of the handler, and the server drops the connection.
+     */
+    private static void abort(Exception cause) {
+        throw new ResponseAbortedException("Streaming of the response failed: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Sends one page of tasks selected by status, epic, after and limit query parameters,
+     * with only the columns listed in fields parameter. If the page is full, id to continue after
+     * is sent in {@value NEXT_AFTER_HEADER} header.
+     */
+    protected void sendTaskPage(HttpExchange h, TaskManager taskManager, TaskType type, Map<String, String> params)
+            throws IOException {
+        TaskStatus status = params.containsKey("status") ? TaskStatus.valueOf(params.get("status").toUpperCase()) : null;
+        Integer epicId = parseInteger(params.get("epic"));
+        Integer afterId = parseInteger(params.get("after"));
+        Integer limit = parseInteger(params.get("limit"));
+        Set<String> fields = null;
+        if (params.containsKey("fields")) {
+            fields = new HashSet<>();
+            for (String field : params.get("fields").split(",")) {
+                fields.add(field.trim());
+            }
+        }
+
+        List<Task> page = taskManager.findTasks(type, status, epicId, afterId, limit == null ? 0 : limit);
+        if (limit != null && limit > 0 && page.size() == limit) {
+            h.getResponseHeaders().add(NEXT_AFTER_HEADER, String.valueOf(page.getLast().getId()));
+        }
+        sendJsonArray(h, page, fields, SUCCESS);
+    }
+
+    private static Integer parseInteger(String value) {
+        return value == null || value.isBlank() ? null : Integer.valueOf(value.trim());
+    }
+
     protected Integer getIdFromPath(String path) {
         String[] parts = path.split("/");
         if (parts.length >= 3) {
@@ -58,6 +189,21 @@ public abstract class BaseHttpHandler implements HttpHandler {
         return null;
     }
 
+    protected Map<String, String> getQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isBlank()) {
+            return params;
+        }
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            String name = separator < 0 ? param : param.substring(0, separator);
+            String value = separator < 0 ? "" : param.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
     protected void processPOSTRequest(HttpExchange exchange) throws IOException {
         sendText(exchange, "", METHOD_NOT_ALLOWED);
     }
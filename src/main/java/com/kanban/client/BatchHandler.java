@@ -0,0 +1,115 @@
+package com.kanban.client;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import com.kanban.controllers.Managers;
+import com.kanban.controllers.TaskManager;
+import com.kanban.exception.PriorityTaskException;
+import com.kanban.exception.TaskNotFoundException;
+import com.kanban.exception.WrongTaskLogicException;
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * POST body {"tasks": [...], "subtasks": [...], "epics": [...]} creates all items if none of them has an id,
+ * or updates all of them if every item has one. DELETE /batch?ids=1,2,3 removes tasks of any type.
+ * Every request is applied completely or not at all.
+ */
+public class BatchHandler extends BaseHttpHandler {
+
+    private final TaskManager taskManager;
+
+    public BatchHandler(TaskManager taskManager) {
+        this.taskManager = taskManager;
+    }
+
+    @Override
+    protected void processPOSTRequest(HttpExchange exchange) throws IOException {
+        try {
+            List<Task> batch = readBatch(exchange);
+            boolean create = batch.stream().allMatch(task -> task.getId() == null);
+            boolean update = batch.stream().allMatch(task -> task.getId() != null);
+            if (create) {
+                sendJson(exchange, taskManager.createAll(batch), SUCCESS_NO_DATA);
+            } else if (update) {
+                taskManager.updateAll(batch);
+                sendText(exchange, "", SUCCESS_NO_DATA);
+            } else {
+                sendText(exchange, "Batch can't mix new and existing tasks", BAD_REQUEST);
+            }
+        } catch (PriorityTaskException e) {
+            sendText(exchange, "", NOT_ACCEPTABLE);
+        } catch (TaskNotFoundException e) {
+            sendText(exchange, e.getMessage(), NOT_FOUND);
+        } catch (WrongTaskLogicException | JsonParseException | IllegalStateException e) {
+            sendText(exchange, e.getMessage(), BAD_REQUEST);
+        } catch (Exception e) {
+            sendText(exchange, e.getMessage(), INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    protected void processDELETERequest(HttpExchange exchange, Integer id) throws IOException {
+        try {
+            String idsParam = getQueryParams(exchange).get("ids");
+            if (idsParam == null || idsParam.isBlank()) {
+                sendText(exchange, "Parameter ids is required", BAD_REQUEST);
+                return;
+            }
+            List<Integer> ids = new ArrayList<>();
+            for (String value : idsParam.split(",")) {
+                ids.add(Integer.parseInt(value.trim()));
+            }
+            taskManager.removeAll(ids);
+            sendText(exchange, "", SUCCESS_NO_DATA);
+        } catch (NumberFormatException e) {
+            sendText(exchange, e.getMessage(), BAD_REQUEST);
+        } catch (TaskNotFoundException e) {
+            sendText(exchange, e.getMessage(), NOT_FOUND);
+        } catch (Exception e) {
+            sendText(exchange, e.getMessage(), INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private List<Task> readBatch(HttpExchange exchange) throws IOException {
+        Gson gson = Managers.getGson();
+        List<Task> batch = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                Class<? extends Task> type = switch (reader.nextName()) {
+                    case "tasks" -> Task.class;
+                    case "subtasks" -> Subtask.class;
+                    case "epics" -> Epic.class;
+                    default -> null;
+                };
+                if (type == null) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    batch.add(gson.fromJson(reader, type));
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (MalformedJsonException | EOFException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return batch;
+    }
+}
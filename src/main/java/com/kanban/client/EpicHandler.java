@@ -5,12 +5,14 @@ import com.kanban.controllers.TaskManager;
 import com.kanban.exception.PriorityTaskException;
 import com.kanban.exception.TaskNotFoundException;
 import com.kanban.tasks.Epic;
+import com.kanban.utils.TaskType;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 public class EpicHandler extends BaseHttpHandler {
 
@@ -22,22 +24,29 @@ public class EpicHandler extends BaseHttpHandler {
 
     @Override
     protected void processGETRequest(HttpExchange exchange, Integer id) throws IOException {
-        String response;
+        Object response;
         try {
+            Map<String, String> params = getQueryParams(exchange);
+            if (id == null && !params.isEmpty()) {
+                sendTaskPage(exchange, taskManager, TaskType.EPIC, params);
+                return;
+            }
             if (id == null) {
                 List<Epic> tasks = taskManager.getAllEpics();
-                response = Managers.getGson().toJson(tasks);
+                response = tasks;
             } else {
                 Epic epic = taskManager.getEpicById(id);
                 if (subtasksInPath(exchange.getRequestURI().getPath())) {
-                    response = Managers.getGson().toJson(epic.getSubTasks());
+                    response = taskManager.getEpicSubtasks(id);
                 } else {
-                    response = Managers.getGson().toJson(epic);
+                    response = epic;
                 }
             }
-            sendText(exchange, response, SUCCESS);
+            sendJson(exchange, response, SUCCESS);
         } catch (TaskNotFoundException e) {
             sendText(exchange, e.getMessage(), NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, e.getMessage(), BAD_REQUEST);
         } catch (Exception e) {
             sendText(exchange, e.getMessage(), INTERNAL_SERVER_ERROR);
         }
@@ -1,24 +1,72 @@
 package com.kanban.client;
 
+import com.kanban.controllers.ConcurrentTaskManager;
+import com.kanban.controllers.InMemoryTaskManager;
 import com.kanban.controllers.Managers;
 import com.kanban.controllers.TaskManager;
+import com.kanban.utils.ExecutionMode;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
 
     private static final int PORT = 8080;
+    private static final int DEFAULT_BACKLOG = 0;
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int DEFAULT_HISTORY_CAPACITY = 100;
+    private static final int DEFAULT_HISTORY_USERS = 100_000;
+
     private final HttpServer server;
+    private final ExecutorService executor;
+    private final UserFilter userFilter = new UserFilter();
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
-        this.server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        this.server.createContext("/tasks", new TaskHandler(taskManager));
-        this.server.createContext("/subtasks", new SubtaskHandler(taskManager));
-        this.server.createContext("/epics", new EpicHandler(taskManager));
-        this.server.createContext("/history", new UserHandler(taskManager));
-        this.server.createContext("/prioritized", new UserHandler(taskManager));
+        this(taskManager, PORT, DEFAULT_BACKLOG, ExecutionMode.DISPATCHER_THREAD);
+    }
+
+    public HttpTaskServer(TaskManager taskManager, int port, int backlog, ExecutionMode mode) throws IOException {
+        this(taskManager, port, backlog, mode, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Handlers run in parallel in any mode but {@link ExecutionMode#DISPATCHER_THREAD},
+     * so then the task manager is wrapped in a {@link ConcurrentTaskManager}, unless it's one already.
+     *
+     * @param backlog  max count of pending connections, 0 means system default
+     * @param poolSize count of threads, used only in {@link ExecutionMode#FIXED_THREAD_POOL} mode
+     */
+    public HttpTaskServer(TaskManager taskManager,
+                          int port,
+                          int backlog,
+                          ExecutionMode mode,
+                          int poolSize) throws IOException {
+        if (mode != ExecutionMode.DISPATCHER_THREAD && !(taskManager instanceof ConcurrentTaskManager)) {
+            taskManager = Managers.getConcurrent(taskManager);
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        createContext("/tasks", new TaskHandler(taskManager));
+        createContext("/subtasks", new SubtaskHandler(taskManager));
+        createContext("/epics", new EpicHandler(taskManager));
+        createContext("/history", new UserHandler(taskManager));
+        createContext("/prioritized", new UserHandler(taskManager));
+        createContext("/slots", new UserHandler(taskManager));
+        createContext("/batch", new BatchHandler(taskManager));
+
+        this.executor = switch (mode) {
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case FIXED_THREAD_POOL -> Executors.newFixedThreadPool(poolSize);
+            case DISPATCHER_THREAD -> null;
+        };
+        this.server.setExecutor(executor);
+    }
+
+    private void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(userFilter);
     }
 
     public void start() {
@@ -27,11 +75,23 @@ public class HttpTaskServer {
 
     public void stop() {
         this.server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     public static void main(String[] args) throws IOException {
-        TaskManager manager = Managers.getDefault();
-        HttpTaskServer httpServer = new HttpTaskServer(manager);
+        int port = Integer.getInteger("kanban.port", PORT);
+        int backlog = Integer.getInteger("kanban.backlog", DEFAULT_BACKLOG);
+        int poolSize = Integer.getInteger("kanban.threads", DEFAULT_POOL_SIZE);
+        ExecutionMode mode = ExecutionMode.valueOf(
+                System.getProperty("kanban.execution", ExecutionMode.VIRTUAL_THREADS.name()));
+
+        int historyCapacity = Integer.getInteger("kanban.history.capacity", DEFAULT_HISTORY_CAPACITY);
+        int historyUsers = Integer.getInteger("kanban.history.users", DEFAULT_HISTORY_USERS);
+
+        TaskManager manager = new InMemoryTaskManager(Managers.getShardedHistory(historyCapacity, historyUsers));
+        HttpTaskServer httpServer = new HttpTaskServer(manager, port, backlog, mode, poolSize);
         httpServer.start();
     }
 
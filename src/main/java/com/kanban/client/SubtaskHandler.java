@@ -5,12 +5,14 @@ import com.kanban.controllers.TaskManager;
 import com.kanban.exception.PriorityTaskException;
 import com.kanban.exception.TaskNotFoundException;
 import com.kanban.tasks.Subtask;
+import com.kanban.utils.TaskType;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 public class SubtaskHandler extends BaseHttpHandler {
 
@@ -22,18 +24,25 @@ public class SubtaskHandler extends BaseHttpHandler {
 
     @Override
     protected void processGETRequest(HttpExchange exchange, Integer id) throws IOException {
-        String response;
+        Object response;
         try {
+            Map<String, String> params = getQueryParams(exchange);
+            if (id == null && !params.isEmpty()) {
+                sendTaskPage(exchange, taskManager, TaskType.SUBTASK, params);
+                return;
+            }
             if (id == null) {
                 List<Subtask> tasks = taskManager.getAllSubtasks();
-                response = Managers.getGson().toJson(tasks);
+                response = tasks;
             } else {
                 Subtask task = taskManager.getSubtaskById(id);
-                response = Managers.getGson().toJson(task);
+                response = task;
             }
-            sendText(exchange, response, SUCCESS);
+            sendJson(exchange, response, SUCCESS);
         } catch (TaskNotFoundException e) {
             sendText(exchange, e.getMessage(), NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, e.getMessage(), BAD_REQUEST);
         } catch (Exception e) {
             sendText(exchange, e.getMessage(), INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,31 @@
+package com.kanban.client;
+
+import com.kanban.controllers.ShardedHistoryManager;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+/**
+ * Binds user from the {@value #USER_HEADER} request header to the handling thread,
+ * so views are recorded to and history is read from that user history.
+ */
+public class UserFilter extends Filter {
+
+    public static final String USER_HEADER = "X-User-Id";
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        ShardedHistoryManager.setCurrentUser(exchange.getRequestHeaders().getFirst(USER_HEADER));
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            ShardedHistoryManager.clearCurrentUser();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Binds " + USER_HEADER + " header to the handling thread";
+    }
+}
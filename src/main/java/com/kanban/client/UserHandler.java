@@ -1,12 +1,17 @@
 package com.kanban.client;
 
-import com.kanban.controllers.Managers;
 import com.kanban.controllers.TaskManager;
+import com.kanban.exception.WrongTaskLogicException;
 import com.kanban.tasks.Task;
+import com.kanban.tasks.TimeSlot;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class UserHandler extends BaseHttpHandler {
 
@@ -18,24 +23,59 @@ public class UserHandler extends BaseHttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        String response = "";
+        Object response;
         List<Task> tasks;
         String command = getCommand(exchange.getRequestURI().getPath());
 
         switch (command) {
             case "history":
-                tasks = taskManager.getHistory();
-                response = Managers.getGson().toJson(tasks);
+                String limit = getQueryParams(exchange).get("limit");
+                try {
+                    tasks = limit == null ? taskManager.getHistory() : taskManager.getHistory(Integer.parseInt(limit));
+                } catch (NumberFormatException e) {
+                    sendText(exchange, "Wrong query parameters: " + e.getMessage(), BAD_REQUEST);
+                    return;
+                }
+                response = tasks;
                 break;
             case "prioritized":
-                tasks = taskManager.getPrioritizedTasks();
-                response = Managers.getGson().toJson(tasks);
+                Map<String, String> params = getQueryParams(exchange);
+                if (params.isEmpty()) {
+                    tasks = taskManager.getPrioritizedTasks();
+                } else {
+                    try {
+                        tasks = taskManager.getPrioritizedTasks(
+                                parseTime(params.get("from")),
+                                parseTime(params.get("to")),
+                                params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : 0);
+                    } catch (DateTimeParseException | NumberFormatException e) {
+                        sendText(exchange, "Wrong query parameters: " + e.getMessage(), BAD_REQUEST);
+                        return;
+                    }
+                }
+                response = tasks;
+                break;
+            case "slots":
+                Map<String, String> slotParams = getQueryParams(exchange);
+                List<TimeSlot> slots;
+                try {
+                    slots = taskManager.findFreeSlots(
+                            Long.parseLong(slotParams.get("duration")),
+                            parseTime(slotParams.get("from")),
+                            slotParams.containsKey("count") ? Integer.parseInt(slotParams.get("count")) : 1);
+                } catch (DateTimeParseException | NumberFormatException | WrongTaskLogicException e) {
+                    sendText(exchange, "Wrong query parameters: " + e.getMessage(), BAD_REQUEST);
+                    return;
+                }
+                response = slots;
                 break;
             default:
                 System.out.println("Some error appeared...");
+                sendText(exchange, "", SUCCESS);
+                return;
         }
 
-        sendText(exchange, response, 200);
+        sendJson(exchange, response, SUCCESS);
     }
 
     protected String getCommand(String path) {
@@ -45,4 +85,11 @@ public class UserHandler extends BaseHttpHandler {
         }
         return null;
     }
+
+    protected LocalDateTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
 }
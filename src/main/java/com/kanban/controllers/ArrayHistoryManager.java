@@ -0,0 +1,226 @@
+package com.kanban.controllers;
+
+import com.kanban.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * History kept in parallel arrays: a slot holds the task, its id and indices of the previous and next slots,
+ * and ids are mapped to slots by an open-addressing table with linear probing. Freed slots are reused,
+ * so once arrays have grown to the history size, add and remove allocate nothing.
+ * Like {@link InMemoryHistoryManager}, it may be bounded by capacity with the least recent task evicted.
+ */
+public class ArrayHistoryManager implements HistoryManager {
+
+    private static final int NIL = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+    private Task[] tasks;
+    private int[] ids;
+    private int[] prev;
+    private int[] next;
+    private int[] table; // slot + 1, zero is an empty cell
+    private int head = NIL;
+    private int tail = NIL;
+    private int free = NIL;
+    private int allocated;
+    private int size;
+
+    public ArrayHistoryManager() {
+        this(0);
+    }
+
+    /**
+     * @param capacity max count of tasks in history, not positive value means unbounded
+     */
+    public ArrayHistoryManager(int capacity) {
+        this.capacity = capacity;
+        int slots = capacity > 0 ? Math.min(capacity, INITIAL_SLOTS) : INITIAL_SLOTS;
+        this.tasks = new Task[slots];
+        this.ids = new int[slots];
+        this.prev = new int[slots];
+        this.next = new int[slots];
+        this.table = new int[tableSizeFor(slots)];
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        int id = task.getId();
+        int slot = find(id);
+        if (slot != NIL) {
+            tasks[slot] = task;
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+            return;
+        }
+
+        if (capacity > 0 && size == capacity) {
+            slot = head;
+            unlink(slot);
+            removeFromTable(ids[slot]);
+        } else {
+            slot = allocate();
+            size++;
+        }
+        ids[slot] = id;
+        tasks[slot] = task;
+        linkLast(slot);
+        insertIntoTable(slot);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        int slot = removeFromTable(id);
+        if (slot == NIL) {
+            return;
+        }
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            history.add(tasks[slot]);
+        }
+        return history;
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(int limit) {
+        if (limit <= 0 || limit >= size) {
+            return getHistory();
+        }
+        Task[] recent = new Task[limit];
+        int slot = tail;
+        for (int i = limit - 1; i >= 0; i--) {
+            recent[i] = tasks[slot];
+            slot = prev[slot];
+        }
+        return new ArrayList<>(Arrays.asList(recent));
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private int allocate() {
+        if (free != NIL) {
+            int slot = free;
+            free = next[slot];
+            return slot;
+        }
+        if (allocated == tasks.length) {
+            int slots = tasks.length * 2;
+            if (capacity > 0) {
+                slots = Math.min(slots, capacity);
+            }
+            tasks = Arrays.copyOf(tasks, slots);
+            ids = Arrays.copyOf(ids, slots);
+            prev = Arrays.copyOf(prev, slots);
+            next = Arrays.copyOf(next, slots);
+            rehash(tableSizeFor(slots));
+        }
+        return allocated++;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    private int find(int id) {
+        int mask = table.length - 1;
+        for (int i = hash(id) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return NIL;
+    }
+
+    private void insertIntoTable(int slot) {
+        int mask = table.length - 1;
+        int i = hash(ids[slot]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * Removes id from the table and shifts following cells of the probe sequence back, so no tombstones are left.
+     */
+    private int removeFromTable(int id) {
+        int mask = table.length - 1;
+        int i = hash(id) & mask;
+        while (table[i] != 0 && ids[table[i] - 1] != id) {
+            i = (i + 1) & mask;
+        }
+        if (table[i] == 0) {
+            return NIL;
+        }
+        int slot = table[i] - 1;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = hash(ids[table[j] - 1]) & mask;
+            boolean staysInPlace = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!staysInPlace) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+        return slot;
+    }
+
+    private void rehash(int tableSize) {
+        table = new int[tableSize];
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            insertIntoTable(slot);
+        }
+    }
+
+    /**
+     * Table is kept at most half full.
+     */
+    private static int tableSizeFor(int slots) {
+        return Integer.highestOneBit(Math.max(slots, 2) * 2 - 1) << 1;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,151 @@
+package com.kanban.controllers;
+
+import com.kanban.tasks.Task;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wraps a {@link HistoryManager}, so add and remove only publish the change to a lock-free queue
+ * and return. A background thread sleeps while the queue is empty. The first queued change wakes it,
+ * and it applies changes published within {@value #FLUSH_INTERVAL_MILLIS} ms as one batch,
+ * or sooner if {@value #BATCH_SIZE} changes are waiting. In a batch only the last change of every id
+ * is applied, in the order of those last changes, which gives the same history as applying all of them.
+ * Reading history applies pending changes first, so it sees every change published before.
+ * Changes are applied on another thread, so a {@link ShardedHistoryManager}, which takes the user
+ * from the calling thread, can't be wrapped.
+ */
+public final class AsyncHistoryManager implements HistoryManager, AutoCloseable {
+
+    public static final long FLUSH_INTERVAL_MILLIS = 10;
+    public static final int BATCH_SIZE = 1024;
+
+    private final HistoryManager delegate;
+    private final Queue<Object> changes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock applyLock = new ReentrantLock();
+    private final Map<Integer, Object> batch = new LinkedHashMap<>();
+    private final Thread consumer;
+    private volatile boolean closed;
+
+    public AsyncHistoryManager(HistoryManager delegate) {
+        if (delegate instanceof ShardedHistoryManager) {
+            throw new IllegalArgumentException("Per user history can't be recorded asynchronously");
+        }
+        this.delegate = delegate;
+        this.consumer = new Thread(this::run, "task-history-consumer");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void add(Task task) {
+        publish(task);
+    }
+
+    @Override
+    public void remove(int id) {
+        publish(new Removal(id));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        flush();
+        return delegate.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        flush();
+        return delegate.getHistory(limit);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
+    /**
+     * Applies all changes published so far on the caller thread.
+     */
+    public void flush() {
+        applyLock.lock();
+        try {
+            Object change;
+            while ((change = changes.poll()) != null) {
+                pending.decrementAndGet();
+                Integer id = change instanceof Removal removal ? removal.id : ((Task) change).getId();
+                batch.remove(id);
+                batch.put(id, change);
+            }
+            for (Iterator<Object> iterator = batch.values().iterator(); iterator.hasNext(); ) {
+                Object next = iterator.next();
+                if (next instanceof Removal removal) {
+                    delegate.remove(removal.id);
+                } else {
+                    delegate.add((Task) next);
+                }
+                iterator.remove();
+            }
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    /**
+     * Applies pending changes and stops the background thread, later changes are applied on the caller thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void publish(Object change) {
+        changes.add(change);
+        int waiting = pending.incrementAndGet();
+        if (closed) {
+            flush();
+        } else if (waiting == 1 || waiting == BATCH_SIZE) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            if (pending.get() <= 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+            long left;
+            while (!closed && pending.get() < BATCH_SIZE && (left = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, left);
+            }
+            flush();
+        }
+    }
+
+    private static class Removal {
+
+        final int id;
+
+        Removal(int id) {
+            this.id = id;
+        }
+    }
+}
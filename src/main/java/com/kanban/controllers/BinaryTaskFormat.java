@@ -0,0 +1,326 @@
+package com.kanban.controllers;
+
+import com.kanban.exception.WrongFileFormatException;
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.kanban.utils.TaskStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary task file: magic "KNBN" and version byte, then one record per task.
+ * Record is kind byte, varint payload length, payload and CRC32 of all of them.
+ * Payload keeps id, status, length-prefixed UTF-8 name and description, epic id of a subtask,
+ * start time as epoch minutes (with sub-minute part only if it's not zero) and duration in minutes.
+ * Records may be appended to an existing file: a later record of an id replaces the earlier one,
+ * and a removal record drops it.
+ */
+public class BinaryTaskFormat {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    private static final int TASK_RECORD = 1;
+    private static final int SUBTASK_RECORD = 2;
+    private static final int EPIC_RECORD = 3;
+    private static final int REMOVAL_RECORD = 4;
+    private static final int HAS_START = 1;
+    private static final int HAS_SUB_MINUTE = 2;
+    private static final int HAS_DURATION = 4;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinaryTaskFormat() {
+    }
+
+    public static boolean isBinary(Path file) throws IOException {
+        byte[] start = new byte[MAGIC.length];
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(start, 0, start.length) == start.length && Arrays.equals(start, MAGIC);
+        }
+    }
+
+    public static byte[] encode(Collection<? extends Task> tasks) {
+        Output out = new Output(64 + tasks.size() * 64);
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeByte(VERSION);
+        writeRecords(out, tasks, List.of());
+        return Arrays.copyOf(out.bytes, out.size);
+    }
+
+    /**
+     * Encodes records without the file header, to be appended to an existing file.
+     */
+    public static byte[] encodeRecords(Collection<? extends Task> tasks, Collection<Integer> removedIds) {
+        Output out = new Output(16 + tasks.size() * 64 + removedIds.size() * 12);
+        writeRecords(out, tasks, removedIds);
+        return Arrays.copyOf(out.bytes, out.size);
+    }
+
+    private static void writeRecords(Output out, Collection<? extends Task> tasks, Collection<Integer> removedIds) {
+        Output payload = new Output(256);
+        CRC32 checksum = new CRC32();
+        for (Task task : tasks) {
+            payload.size = 0;
+            writePayload(payload, task);
+            int kind = switch (task) {
+                case Subtask subtask -> SUBTASK_RECORD;
+                case Epic epic -> EPIC_RECORD;
+                default -> TASK_RECORD;
+            };
+            writeRecord(out, kind, payload, checksum);
+        }
+        for (Integer id : removedIds) {
+            payload.size = 0;
+            payload.writeVarLong(id);
+            writeRecord(out, REMOVAL_RECORD, payload, checksum);
+        }
+    }
+
+    private static void writeRecord(Output out, int kind, Output payload, CRC32 checksum) {
+        int recordStart = out.size;
+        out.writeByte(kind);
+        out.writeVarLong(payload.size);
+        out.writeBytes(payload.bytes, 0, payload.size);
+        checksum.reset();
+        checksum.update(out.bytes, recordStart, out.size - recordStart);
+        out.writeInt((int) checksum.getValue());
+    }
+
+    public static void write(Path file, Collection<? extends Task> tasks) throws IOException {
+        Files.write(file, encode(tasks));
+    }
+
+    public static List<Task> read(Path file) throws IOException {
+        return decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    /**
+     * Damaged records are reported and skipped, a truncated tail is reported and ignored.
+     */
+    public static List<Task> decode(ByteBuffer in) {
+        byte[] magic = new byte[MAGIC.length];
+        if (in.remaining() < MAGIC.length + 1) {
+            throw new WrongFileFormatException("Binary task file is too short");
+        }
+        in.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new WrongFileFormatException("Binary task file should start with 'KNBN'");
+        }
+        int version = in.get();
+        if (version != VERSION) {
+            throw new WrongFileFormatException("Unsupported binary task file version: " + version);
+        }
+
+        Map<Integer, Task> tasks = new LinkedHashMap<>();
+        CRC32 checksum = new CRC32();
+        while (in.hasRemaining()) {
+            int recordStart = in.position();
+            int kind = in.get();
+            long length = in.hasRemaining() ? readVarLong(in) : -1;
+            if (length < 0 || length > in.remaining() - Integer.BYTES) {
+                System.out.println("Binary task file is truncated at byte " + recordStart);
+                break;
+            }
+            ByteBuffer payload = in.slice(in.position(), (int) length);
+            in.position(in.position() + (int) length);
+            int expected = in.getInt();
+
+            checksum.reset();
+            checksum.update(in.slice(recordStart, in.position() - Integer.BYTES - recordStart));
+            if ((int) checksum.getValue() != expected) {
+                System.out.println("Skipping damaged task record at byte " + recordStart);
+                continue;
+            }
+            try {
+                if (kind == REMOVAL_RECORD) {
+                    tasks.remove(Math.toIntExact(readVarLong(payload)));
+                    continue;
+                }
+                Task task = readPayload(payload, kind);
+                if (task != null) {
+                    tasks.put(task.getId(), task);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Skipping task record at byte " + recordStart + ": " + e.getMessage());
+            }
+        }
+        return new ArrayList<>(tasks.values());
+    }
+
+    private static void writePayload(Output out, Task task) {
+        out.writeVarLong(task.getId());
+        out.writeByte(task.getStatus() == null ? 0 : task.getStatus().ordinal() + 1);
+        out.writeString(task.getName());
+        out.writeString(task.getDescription());
+        if (task instanceof Subtask subtask) {
+            out.writeVarLong(subtask.getEpicId() == null ? 0 : zigZag(subtask.getEpicId()) + 1);
+        }
+        if (task instanceof Epic) {
+            out.writeByte(0); // times of an epic are calculated from its subtasks
+            return;
+        }
+
+        LocalDateTime start = task.getStartTime();
+        Long duration = task.getDuration();
+        long seconds = start == null ? 0 : start.toEpochSecond(ZoneOffset.UTC);
+        long subMinute = start == null ? 0 : Math.floorMod(seconds, 60) * NANOS_PER_SECOND + start.getNano();
+        int flags = (start != null ? HAS_START : 0)
+                | (subMinute != 0 ? HAS_SUB_MINUTE : 0)
+                | (duration != null ? HAS_DURATION : 0);
+        out.writeByte(flags);
+        if (start != null) {
+            out.writeVarLong(zigZag(Math.floorDiv(seconds, 60)));
+        }
+        if (subMinute != 0) {
+            out.writeVarLong(subMinute);
+        }
+        if (duration != null) {
+            out.writeVarLong(zigZag(duration));
+        }
+    }
+
+    private static Task readPayload(ByteBuffer in, int kind) {
+        int id = Math.toIntExact(readVarLong(in));
+        int status = in.get();
+        TaskStatus taskStatus = status == 0 ? null : STATUSES[status - 1];
+        String name = readString(in);
+        String description = readString(in);
+        Integer epicId = null;
+        if (kind == SUBTASK_RECORD) {
+            long value = readVarLong(in);
+            epicId = value == 0 ? null : Math.toIntExact(unZigZag(value - 1));
+        }
+
+        int flags = in.get();
+        LocalDateTime start = null;
+        Long duration = null;
+        if ((flags & HAS_START) != 0) {
+            long seconds = unZigZag(readVarLong(in)) * 60;
+            long subMinute = (flags & HAS_SUB_MINUTE) != 0 ? readVarLong(in) : 0;
+            start = LocalDateTime.ofEpochSecond(seconds + subMinute / NANOS_PER_SECOND,
+                    (int) (subMinute % NANOS_PER_SECOND), ZoneOffset.UTC);
+        }
+        if ((flags & HAS_DURATION) != 0) {
+            duration = unZigZag(readVarLong(in));
+        }
+
+        return switch (kind) {
+            case TASK_RECORD -> new Task(name, description, taskStatus, id, start, duration);
+            case SUBTASK_RECORD -> new Subtask(name, description, taskStatus, id, epicId, start, duration);
+            case EPIC_RECORD -> new Epic(name, description, taskStatus, id, new HashSet<>());
+            default -> {
+                System.out.println("Skipping task record of unknown kind: " + kind);
+                yield null;
+            }
+        };
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new WrongFileFormatException("Varint is too long");
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Math.toIntExact(readVarLong(in));
+        if (length == 0) {
+            return null;
+        }
+        if (!in.hasArray()) {
+            byte[] encoded = new byte[length - 1];
+            in.get(encoded);
+            return new String(encoded, StandardCharsets.UTF_8);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + length - 1);
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output {
+
+        byte[] bytes;
+
+        int size;
+
+        Output(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] values, int offset, int length) {
+            ensure(length);
+            System.arraycopy(values, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeInt(int value) {
+            ensure(Integer.BYTES);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Length is written plus one, so zero stands for null.
+         */
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(encoded.length + 1L);
+            writeBytes(encoded, 0, encoded.length);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.kanban.controllers;
+
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.kanban.tasks.TimeSlot;
+import com.kanban.utils.TaskStatus;
+import com.kanban.utils.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe wrapper for any {@link TaskManager}: readers work in parallel under a shared lock,
+ * every mutation (including id generation and persistence of the wrapped manager) is exclusive.
+ * Writers are not striped: any mutation may change the priority index and epic status counters,
+ * which are shared by all task types, so one writer at a time keeps them consistent.
+ * Reads by id also record a view, so they share the lock only when the wrapped manager is
+ * an {@link InMemoryTaskManager} with a {@link HistoryManager#isThreadSafe thread-safe} history,
+ * otherwise they are exclusive too. Returned tasks are copies taken under the lock, epics with
+ * copies of their subtasks, so they may be read while the stored ones are changed.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private final TaskManager delegate;
+
+    private final Lock readLock;
+
+    private final Lock writeLock;
+
+    private final Lock viewLock;
+
+    /**
+     * A {@link FileBackedTaskManager} delegate waits for its journal to be synced after the write lock
+     * is released, so writers queued behind the lock are synced together.
+     */
+    public ConcurrentTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+        if (delegate instanceof FileBackedTaskManager fileBacked) {
+            fileBacked.deferDurability();
+        }
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+        this.viewLock = delegate instanceof InMemoryTaskManager manager && manager.historyManager.isThreadSafe()
+                ? readLock : writeLock;
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(() -> copyAll(delegate.getAllTasks()));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(() -> copyAll(delegate.getAllSubtasks()));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(() -> copyAll(delegate.getAllEpics()));
+    }
+
+    @Override
+    public void cleanTasks() {
+        write(delegate::cleanTasks);
+    }
+
+    @Override
+    public void cleanSubtasks() {
+        write(delegate::cleanSubtasks);
+    }
+
+    @Override
+    public void cleanEpics() {
+        write(delegate::cleanEpics);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return view(() -> copy(delegate.getTaskById(id)));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return view(() -> copy(delegate.getSubtaskById(id)));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return view(() -> copy(delegate.getEpicById(id)));
+    }
+
+    @Override
+    public Integer createTask(Task task) {
+        return write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public Integer createTask(Subtask task) {
+        return write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public Integer createTask(Epic task) {
+        return write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void updateTask(Subtask subtask) {
+        write(() -> delegate.updateTask(subtask));
+    }
+
+    @Override
+    public void updateTask(Epic epic) {
+        write(() -> delegate.updateTask(epic));
+    }
+
+    @Override
+    public void removeTaskById(Integer id) {
+        write(() -> delegate.removeTaskById(id));
+    }
+
+    @Override
+    public void removeSubtaskById(Integer id) {
+        write(() -> delegate.removeSubtaskById(id));
+    }
+
+    @Override
+    public void removeEpicById(Integer id) {
+        write(() -> delegate.removeEpicById(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return read(() -> copyAll(delegate.getEpicSubtasks(epicId)));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> copyAll(delegate.getHistory()));
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return read(() -> copyAll(delegate.getHistory(limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(() -> copyAll(delegate.getPrioritizedTasks()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> copyAll(delegate.getPrioritizedTasks(from, to, limit)));
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime notBefore, int count) {
+        return read(() -> delegate.findFreeSlots(durationMinutes, notBefore, count));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(long durationMinutes, LocalDateTime notBefore) {
+        return read(() -> delegate.findFreeSlot(durationMinutes, notBefore));
+    }
+
+    @Override
+    public List<Task> findTasks(TaskType type, TaskStatus status, Integer epicId, Integer afterId, int limit) {
+        return read(() -> copyAll(delegate.findTasks(type, status, epicId, afterId, limit)));
+    }
+
+    @Override
+    public List<Integer> createAll(List<? extends Task> tasks) {
+        return write(() -> delegate.createAll(tasks));
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> tasks) {
+        write(() -> delegate.updateAll(tasks));
+    }
+
+    @Override
+    public void removeAll(List<Integer> ids) {
+        write(() -> delegate.removeAll(ids));
+    }
+
+    private <T> T read(Supplier<T> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <T> T view(Supplier<T> action) {
+        viewLock.lock();
+        try {
+            return action.get();
+        } finally {
+            viewLock.unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        T result;
+        writeLock.lock();
+        try {
+            result = action.get();
+        } finally {
+            writeLock.unlock();
+            if (delegate instanceof FileBackedTaskManager fileBacked) {
+                fileBacked.awaitDurability();
+            }
+        }
+        return result;
+    }
+
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T copy(T task) {
+        return switch (task) {
+            case null -> null;
+            case Epic epic -> (T) new Epic(epic);
+            case Subtask subtask -> (T) new Subtask(subtask);
+            default -> (T) new Task(task);
+        };
+    }
+
+    private static <T extends Task> List<T> copyAll(List<T> tasks) {
+        List<T> copies = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            copies.add(copy(task));
+        }
+        return copies;
+    }
+}
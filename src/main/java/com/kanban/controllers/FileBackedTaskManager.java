@@ -1,6 +1,9 @@
 package com.kanban.controllers;
 
-import com.kanban.utils.TaskStatus;
+import com.kanban.utils.FileFormat;
+import com.kanban.utils.FsyncPolicy;
+import com.kanban.utils.LoadMode;
+import com.kanban.utils.StorageMode;
 import com.kanban.utils.TaskType;
 import com.kanban.exception.ManagerSaveException;
 import com.kanban.exception.WrongFileFormatException;
@@ -10,78 +13,119 @@ import com.kanban.tasks.Task;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static com.kanban.utils.TaskType.SUBTASK;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
     public static final String HEADER = "id,type,name,status,description,epic";
-    private static final Integer TASK_MANDATORY_PARAM_CNT = 5;
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final String COMPACTED_JOURNAL_SUFFIX = ".journal.old";
+    public static final String HISTORY_SUFFIX = ".history";
+    public static final int DEFAULT_COMPACTION_RECORDS = 10_000;
+    public static final long DEFAULT_COMPACTION_BYTES = 16L * 1024 * 1024;
+    private static final int MIN_APPENDED_RECORDS = 1024;
+    private static final String PUT_RECORD = "PUT";
+    private static final String REMOVE_RECORD = "REMOVE";
+    private static final String CLEAN_RECORD = "CLEAN";
 
     private final Path tasksFile;
-
+    private final Path journalFile;
+    private final Path compactedJournalFile;
+    private final StorageMode storageMode;
+    private final LoadMode loadMode;
+    private final Duration loadDuration;
+    private final PersistentHistoryManager history;
+    private final Map<Integer, Integer> renumberedIds = new HashMap<>();
+
+    private int compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private long compactionBytes = DEFAULT_COMPACTION_BYTES;
+    private int journalRecords;
+    private long journalBytes;
+    private ExecutorService compactionExecutor;
+    private Future<?> compaction;
+    private JournalWriter journalWriter;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.EVERY_WRITE;
+    private long fsyncPolicyValue;
+    private boolean waitForDurability = true;
+    private boolean deferredDurability;
+    private final ThreadLocal<CompletableFuture<Void>> unsyncedAppend = new ThreadLocal<>();
+    private final AtomicReference<Throwable> journalFailure = new AtomicReference<>();
+    private List<String> batchRecords;
+    private FileFormat fileFormat = FileFormat.CSV;
+    private final Set<Integer> dirtyIds = new LinkedHashSet<>();
+    private final Set<Integer> removedIds = new LinkedHashSet<>();
+    private boolean binaryFileCurrent;
+    private int appendedRecords;
+
+    /**
+     * View history is kept by {@link PersistentHistoryManager} in a file next to the tasks file
+     * and restored after tasks are loaded, so a per user {@link ShardedHistoryManager} is rejected.
+     */
     public FileBackedTaskManager(HistoryManager historyManager, Path tasksFile) {
-        super(historyManager);
+        this(historyManager, tasksFile, StorageMode.SNAPSHOT);
+    }
+
+    /**
+     * In {@link StorageMode#JOURNAL} mode every mutation is appended as one record to the journal file
+     * next to the tasks file, and the tasks file is only read on startup, with ids kept as they are.
+     * When the journal grows over compaction thresholds, the tasks file is rewritten as a snapshot
+     * in background and the journal is truncated.
+     */
+    public FileBackedTaskManager(HistoryManager historyManager, Path tasksFile, StorageMode storageMode) {
+        this(historyManager, tasksFile, storageMode, LoadMode.SEQUENTIAL);
+    }
+
+    /**
+     * With {@link LoadMode#BULK} the tasks file is parsed in one pass and restored with ids as they are,
+     * intersections are checked by a single sort and sweep, and nothing is written while loading.
+     * {@link LoadMode#PARALLEL} does the same, but the file is memory-mapped and parsed in chunks on all cores.
+     * {@link LoadMode#SEQUENTIAL} creates tasks from the file one by one.
+     */
+    public FileBackedTaskManager(HistoryManager historyManager, Path tasksFile, StorageMode storageMode,
+                                 LoadMode loadMode) {
+        super(new PersistentHistoryManager(historyManager,
+                tasksFile.resolveSibling(tasksFile.getFileName() + HISTORY_SUFFIX)));
+        this.history = (PersistentHistoryManager) this.historyManager;
         this.tasksFile = tasksFile;
+        this.journalFile = tasksFile.resolveSibling(tasksFile.getFileName() + JOURNAL_SUFFIX);
+        this.compactedJournalFile = tasksFile.resolveSibling(tasksFile.getFileName() + COMPACTED_JOURNAL_SUFFIX);
+        this.storageMode = storageMode;
+        this.loadMode = loadMode;
+        long started = System.nanoTime();
         loadFromFile();
+        history.restore(this::findLoaded);
+        renumberedIds.clear();
+        this.loadDuration = Duration.ofNanos(System.nanoTime() - started);
     }
 
     public static Task fromString(String line) {
-        List<String> items = Arrays.stream(line.strip().split(",")).toList();
-
-        if (items.size() < TASK_MANDATORY_PARAM_CNT) {
-            throw new WrongFileFormatException("Wrong count of params for task in line: " + line
-                    + " , format should be: 'id, task type, task name, task status, task description, epicId (if it's subtask)'");
-        }
-
-        try {
-            Integer id = Integer.parseInt(items.get(0).strip());
-            TaskType type = TaskType.valueOf(items.get(1).strip());
-            String name = items.get(2).strip();
-            TaskStatus status = TaskStatus.valueOf(items.get(3).strip());
-            String description = items.get(4).strip();
-            LocalDateTime startTime = null;
-            Long duration = null;
-
-            if (items.size() > 6 && !items.get(6).isBlank()) {
-                startTime = LocalDateTime.parse(items.get(6).strip());
-            }
-
-            if (items.size() > 7 && !items.get(7).isBlank()) {
-                duration = Long.parseLong(items.get(7).strip());
-            }
-
-            switch (type) {
-                case TASK -> {
-                    return new Task(name, description, status, id, startTime, duration);
-                }
-
-                case EPIC -> {
-                    return new Epic(name, description, status, id, new HashSet<>());
-                }
-
-                case SUBTASK -> {
-                    int epicId = Integer.parseInt(items.get(5).strip());
-                    return new Subtask(name, description, status, id, epicId, startTime, duration);
-                }
-
-                default -> throw new WrongFileFormatException("Couldn't define task type from file");
-            }
-        } catch (Exception e) {
-            throw new WrongFileFormatException("Can't parse task '" + line + "', because:\n" + e.getMessage());
-        }
-
+        TaskLineParser parser = new TaskLineParser(line);
+        parser.nextLine();
+        return parser.parse();
     }
 
     public static String toString(Task task) {
@@ -100,6 +144,71 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return toString((Task) task) + task.getEpicId();
     }
 
+    public static String toFullString(Task task) {
+        String line = switch (task) {
+            case Subtask subtask -> toString(subtask);
+            case Epic epic -> toString(epic);
+            default -> toString(task);
+        };
+        return line + ","
+                + (task.getStartTime() == null ? "" : task.getStartTime().toString()) + ","
+                + (task.getDuration() == null ? "" : task.getDuration().toString());
+    }
+
+    public Duration getLoadDuration() {
+        return loadDuration;
+    }
+
+    public FileFormat getFileFormat() {
+        return fileFormat;
+    }
+
+    /**
+     * Format of the tasks file for next saves and snapshots. A binary file is detected on load
+     * and keeps being saved as binary unless the format is changed here.
+     * In snapshot mode only the binary file gets changed tasks appended, a CSV file is rewritten on every change.
+     */
+    public void setFileFormat(FileFormat fileFormat) {
+        this.fileFormat = fileFormat;
+        this.binaryFileCurrent = false;
+    }
+
+    /**
+     * Rewrites tasks file in the given format. The source format is detected, ids and times are kept.
+     */
+    public static void convert(Path source, Path target, FileFormat format) throws IOException {
+        List<Task> tasks = readTasks(source);
+        if (format == FileFormat.BINARY) {
+            BinaryTaskFormat.write(target, tasks);
+            return;
+        }
+        StringBuilder content = new StringBuilder(HEADER);
+        for (Task task : tasks) {
+            content.append('\n').append(toFullString(task));
+        }
+        Files.writeString(target, content, StandardCharsets.UTF_8);
+    }
+
+    private static List<Task> readTasks(Path file) throws IOException {
+        if (BinaryTaskFormat.isBinary(file)) {
+            return BinaryTaskFormat.read(file);
+        }
+        TaskLineParser parser = new TaskLineParser(
+                StandardCharsets.UTF_8.decode(ByteBuffer.wrap(Files.readAllBytes(file))));
+        List<Task> tasks = new ArrayList<>();
+        if (parser.nextLine() && !parser.lineEquals(HEADER)) {
+            throw new WrongFileFormatException("Header should be '" + HEADER + "'");
+        }
+        while (parser.nextLine()) {
+            try {
+                tasks.add(parser.parse());
+            } catch (WrongFileFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        return tasks;
+    }
+
     private void setTaskCounter(int counter) {
         this.taskCounter = counter;
     }
@@ -107,43 +216,359 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     @Override
     public Integer createTask(Task task) {
         super.createTask(task);
-        save();
+        onTasksChanged(List.of(task));
         return task.getId();
     }
 
     @Override
     public Integer createTask(Epic epic) {
         super.createTask(epic);
-        save();
+        onEpicChanged(epic);
         return epic.getId();
     }
 
     @Override
     public Integer createTask(Subtask subtask) {
         super.createTask(subtask);
-        save();
+        onTasksChanged(List.of(subtask));
         return subtask.getId();
     }
 
+    @Override
+    public void updateTask(Task task) {
+        super.updateTask(task);
+        onTasksChanged(List.of(task));
+    }
+
+    @Override
+    public void updateTask(Subtask subtask) {
+        super.updateTask(subtask);
+        onTasksChanged(List.of(subtask));
+    }
+
+    @Override
+    public void updateTask(Epic epic) {
+        super.updateTask(epic);
+        onEpicChanged(epic);
+    }
+
     @Override
     public void removeTaskById(Integer id) {
         super.removeTaskById(id);
-        save();
+        onTaskRemoved(TaskType.TASK, id);
     }
 
     @Override
     public void removeSubtaskById(Integer id) {
+        Subtask subtask = subTasks.get(id);
         super.removeSubtaskById(id);
-        save();
+        if (subtask != null && subtask.getEpicId() != null) {
+            trackChanged(epics.get(subtask.getEpicId()));
+        }
+        onTaskRemoved(SUBTASK, id);
     }
 
     @Override
     public void removeEpicById(Integer id) {
+        List<Integer> subtaskIds = storageMode == StorageMode.SNAPSHOT && epics.containsKey(id)
+                ? epics.get(id).getSubTasks().stream().map(Task::getId).toList()
+                : List.of();
         super.removeEpicById(id);
-        save();
+        subtaskIds.forEach(this::trackRemoved);
+        onTaskRemoved(TaskType.EPIC, id);
+    }
+
+    @Override
+    public List<Integer> createAll(List<? extends Task> tasks) {
+        return inBatch(() -> super.createAll(tasks));
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> tasks) {
+        inBatch(() -> {
+            super.updateAll(tasks);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAll(List<Integer> ids) {
+        inBatch(() -> {
+            super.removeAll(ids);
+            return null;
+        });
+    }
+
+    /**
+     * Collects changes made by the action and persists them at once: one journal append
+     * or one snapshot write for the whole batch. Nothing is written if the action changed nothing,
+     * e.g. when the batch failed validation.
+     */
+    private <T> T inBatch(Supplier<T> action) {
+        batchRecords = new ArrayList<>();
+        try {
+            return action.get();
+        } finally {
+            List<String> records = batchRecords;
+            batchRecords = null;
+            if (storageMode == StorageMode.JOURNAL) {
+                if (!records.isEmpty()) {
+                    appendToJournal(records);
+                }
+            } else if (!dirtyIds.isEmpty() || !removedIds.isEmpty()) {
+                save();
+            }
+        }
+    }
+
+    private void onEpicChanged(Epic epic) {
+        List<Task> changed = new ArrayList<>();
+        changed.add(epic);
+        changed.addAll(epic.getSubTasks());
+        onTasksChanged(changed);
+    }
+
+    private void onTasksChanged(List<? extends Task> changed) {
+        if (storageMode == StorageMode.JOURNAL) {
+            appendToJournal(changed.stream()
+                    .map(task -> PUT_RECORD + "," + toFullString(task))
+                    .toList());
+        } else {
+            changed.forEach(this::trackChanged);
+            save();
+        }
+    }
+
+    private void onTaskRemoved(TaskType type, Integer id) {
+        if (storageMode == StorageMode.JOURNAL) {
+            appendToJournal(List.of(REMOVE_RECORD + "," + type + "," + id));
+        } else {
+            trackRemoved(id);
+            save();
+        }
+    }
+
+    /**
+     * Remembers ids changed since the last save, so a binary snapshot gets only their records appended.
+     * Epic of a subtask is changed too, as its status and times depend on the subtask.
+     */
+    private void trackChanged(Task task) {
+        if (task == null || storageMode != StorageMode.SNAPSHOT) {
+            return;
+        }
+        dirtyIds.add(task.getId());
+        removedIds.remove(task.getId());
+        if (task instanceof Subtask subtask && subtask.getEpicId() != null) {
+            dirtyIds.add(subtask.getEpicId());
+        }
+    }
+
+    private void trackRemoved(Integer id) {
+        if (storageMode != StorageMode.SNAPSHOT) {
+            return;
+        }
+        removedIds.add(id);
+        dirtyIds.remove(id);
+    }
+
+    private void appendToJournal(List<String> records) {
+        if (batchRecords != null) {
+            batchRecords.addAll(records);
+            return;
+        }
+        Throwable failure = journalFailure.getAndSet(null);
+        if (failure != null) {
+            throw new ManagerSaveException("Appending to the task journal failed: " + failure.getMessage());
+        }
+        CompletableFuture<Void> synced = journalWriter().append(records);
+        if (!waitForDurability) {
+            synced.whenComplete((written, e) -> {
+                if (e != null) {
+                    journalFailure.set(e);
+                }
+            });
+        } else if (deferredDurability) {
+            CompletableFuture<Void> previous = unsyncedAppend.get();
+            unsyncedAppend.set(previous == null ? synced : CompletableFuture.allOf(previous, synced));
+        } else {
+            awaitJournal(synced);
+        }
+
+        for (String record : records) {
+            journalBytes += utf8Length(record) + 1;
+        }
+        journalRecords += records.size();
+        if (journalRecords >= compactionRecords || journalBytes >= compactionBytes) {
+            compact();
+        }
+    }
+
+    private static int utf8Length(String record) {
+        int bytes = record.length();
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (c >= 0x80) {
+                bytes += c < 0x800 || Character.isSurrogate(c) ? 1 : 2;
+            }
+        }
+        return bytes;
+    }
+
+    private JournalWriter journalWriter() {
+        if (journalWriter == null) {
+            journalWriter = new JournalWriter(journalFile, fsyncPolicy, fsyncPolicyValue);
+        }
+        return journalWriter;
+    }
+
+    private void awaitJournal(CompletableFuture<Void> synced) {
+        try {
+            synced.join();
+        } catch (CompletionException e) {
+            throw new ManagerSaveException("Appending to the task journal failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Makes mutations leave waiting for durability to {@link #awaitDurability}, so a wrapper can call it
+     * after releasing its lock and concurrent writers share one fsync.
+     */
+    void deferDurability() {
+        this.deferredDurability = true;
+    }
+
+    /**
+     * Waits until journal records appended by mutations of the current thread are synced.
+     */
+    void awaitDurability() {
+        CompletableFuture<Void> synced = unsyncedAppend.get();
+        if (synced != null) {
+            unsyncedAppend.remove();
+            awaitJournal(synced);
+        }
+    }
+
+    /**
+     * Journal records are written by a background writer in batches. With waitForDurability
+     * mutations return only after their records are synced according to the policy, otherwise they
+     * return right after the records are queued, and a failed write is thrown by the next mutation.
+     *
+     * @param policyValue milliseconds for {@link FsyncPolicy#INTERVAL_MILLIS},
+     *                    count of records for {@link FsyncPolicy#RECORD_COUNT}
+     */
+    public void setDurability(FsyncPolicy policy, long policyValue, boolean waitForDurability) {
+        this.fsyncPolicy = policy;
+        this.fsyncPolicyValue = policyValue;
+        this.waitForDurability = waitForDurability;
+        if (journalWriter != null) {
+            journalWriter.setPolicy(policy, policyValue);
+        }
+    }
+
+    public void setCompactionThresholds(int maxRecords, long maxBytes) {
+        this.compactionRecords = maxRecords;
+        this.compactionBytes = maxBytes;
+    }
+
+    /**
+     * Serializes the snapshot on the caller thread, as epics are changed in place by later updates,
+     * and queues moving the journal aside after already queued records. Then writes the snapshot
+     * and drops the old journal in background. Until the snapshot is in place, the old journal
+     * is still replayed on startup, so a crash in the middle loses nothing.
+     */
+    public void compact() {
+        if (storageMode != StorageMode.JOURNAL || (compaction != null && !compaction.isDone())) {
+            return;
+        }
+        byte[] snapshot = snapshotContent();
+        CompletableFuture<Void> rotated = journalWriter().rotate(compactedJournalFile);
+        journalRecords = 0;
+        journalBytes = 0;
+
+        if (compactionExecutor == null) {
+            compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactionExecutor.submit(() -> {
+            try {
+                rotated.join();
+            } catch (CompletionException e) {
+                System.out.println("Unable to rotate the task journal: " + e.getCause().getMessage());
+                return;
+            }
+            writeSnapshot(snapshot);
+        });
+    }
+
+    /**
+     * Epics go first, so they are known when their subtasks are loaded.
+     */
+    private List<Task> snapshotTasks() {
+        List<Task> snapshot = new ArrayList<>(epics.size() + tasks.size() + subTasks.size());
+        snapshot.addAll(epics.values());
+        snapshot.addAll(tasks.values());
+        snapshot.addAll(subTasks.values());
+        return snapshot;
+    }
+
+    private byte[] snapshotContent() {
+        List<Task> snapshot = snapshotTasks();
+        if (fileFormat == FileFormat.BINARY) {
+            return BinaryTaskFormat.encode(snapshot);
+        }
+        StringBuilder content = new StringBuilder(HEADER);
+        for (Task task : snapshot) {
+            content.append('\n').append(toFullString(task));
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void writeSnapshot(byte[] snapshot) {
+        Path tmpFile = tasksFile.resolveSibling(tasksFile.getFileName() + ".tmp");
+        try {
+            Files.write(tmpFile, snapshot);
+            Files.move(tmpFile, tasksFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(compactedJournalFile);
+        } catch (IOException e) {
+            System.out.println("Unable to write tasks snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes queued journal and view history records and waits for background compaction to finish.
+     */
+    @Override
+    public void close() {
+        history.close();
+        if (journalWriter != null) {
+            journalWriter.close();
+            journalWriter = null;
+        }
+        if (compactionExecutor == null) {
+            return;
+        }
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactionExecutor = null;
     }
 
     private void save() {
+        if (batchRecords != null) {
+            return;
+        }
+        if (fileFormat == FileFormat.BINARY) {
+            saveChanges();
+            return;
+        }
+        dirtyIds.clear();
+        removedIds.clear();
         try (BufferedWriter writer = Files.newBufferedWriter(tasksFile, StandardCharsets.UTF_8)) {
             List<Task> tasks = getAllTasks();
             tasks.addAll(getAllSubtasks());
@@ -153,12 +578,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             taskContent.add(HEADER);
             tasks.sort(Comparator.comparing(Task::getId));
             for (Task task : tasks) {
-                switch (task.getType()) {
-                    case SUBTASK -> taskContent.add(toString((Subtask) task));
-                    case EPIC -> taskContent.add(toString((Epic) task));
-                    case TASK -> taskContent.add(toString(task));
-                    default -> System.out.println("Wrong type for task: " + task);
-                }
+                taskContent.add(toFullString(task));
             }
             writer.write(String.join("\n", taskContent));
         } catch (IOException e) {
@@ -166,41 +586,101 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    /**
+     * Appends records of changed and removed ids to the binary file. The whole file is rewritten
+     * only when it isn't binary yet, or when appended records outnumber live tasks.
+     */
+    private void saveChanges() {
+        if (binaryFileCurrent && dirtyIds.isEmpty() && removedIds.isEmpty()) {
+            return;
+        }
+        int liveTasks = tasks.size() + subTasks.size() + epics.size();
+        int changes = dirtyIds.size() + removedIds.size();
+        try {
+            if (!binaryFileCurrent || appendedRecords + changes > Math.max(liveTasks, MIN_APPENDED_RECORDS)) {
+                Path tmpFile = tasksFile.resolveSibling(tasksFile.getFileName() + ".tmp");
+                Files.write(tmpFile, snapshotContent());
+                Files.move(tmpFile, tasksFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                binaryFileCurrent = true;
+                appendedRecords = 0;
+            } else {
+                List<Task> changed = new ArrayList<>(dirtyIds.size());
+                for (Integer id : dirtyIds) {
+                    Task task = tasks.containsKey(id) ? tasks.get(id)
+                            : subTasks.containsKey(id) ? subTasks.get(id) : epics.get(id);
+                    if (task != null) {
+                        changed.add(task);
+                    }
+                }
+                Files.write(tasksFile, BinaryTaskFormat.encodeRecords(changed, removedIds), StandardOpenOption.APPEND);
+                appendedRecords += changes;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Saving to the task history failed");
+        }
+        dirtyIds.clear();
+        removedIds.clear();
+    }
+
     private void loadFromFile() {
+        if (storageMode == StorageMode.JOURNAL) {
+            loadSnapshot();
+            boolean interruptedCompaction = Files.exists(compactedJournalFile);
+            replayJournal(compactedJournalFile);
+            journalRecords = replayJournal(journalFile);
+            linkRestoredSubtasks();
+            if (interruptedCompaction) {
+                writeSnapshot(snapshotContent());
+                try {
+                    Files.deleteIfExists(journalFile);
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Unable to truncate the task journal");
+                }
+                journalRecords = 0;
+                journalBytes = 0;
+            }
+            return;
+        }
+        if (loadMode != LoadMode.SEQUENTIAL || isBinaryFile()) {
+            loadSnapshot();
+            return;
+        }
         if (!Files.isRegularFile(tasksFile)) {
             System.out.println("WARN: Unable to load from file: " + tasksFile);
             return;
         }
-        List<String> tasks;
+        TaskLineParser parser;
         try {
-            tasks = Files.readAllLines(tasksFile);
+            parser = new TaskLineParser(readTasksFile());
         } catch (IOException e) {
             System.out.println("Unable to read tasks from file : " + tasksFile);
             return;
         }
 
-        if (tasks.isEmpty() || !HEADER.equals(tasks.getFirst())) {
+        if (!parser.nextLine() || !parser.lineEquals(HEADER)) {
             throw new WrongFileFormatException("Header should be '" + HEADER + "'");
-        } else {
-            tasks.removeFirst(); // remove header
         }
 
         int latestTaskCounter = 0;
         Task taskTmp;
-        for (String taskString : tasks) {
+        while (parser.nextLine()) {
             try {
-                taskTmp = fromString(taskString);
+                taskTmp = parser.parse();
             } catch (WrongFileFormatException e) {
                 System.out.println(e.getMessage());
                 continue;
             }
 
+            int fileId = taskTmp.getId();
             switch (taskTmp) {
                 case Epic epic -> createTask(epic);
                 case Subtask subtask -> createTask(subtask);
                 default -> createTask(taskTmp);
             }
 
+            if (taskTmp.getId() != fileId) {
+                renumberedIds.put(fileId, taskTmp.getId());
+            }
             if (taskTmp.getId() > latestTaskCounter) {
                 latestTaskCounter = taskTmp.getId();
             }
@@ -216,53 +696,184 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
 
     }
 
-    @Override
-    public void cleanTasks() {
-        super.cleanTasks();
-        cleanTaskType(TaskType.TASK);
+    private void loadSnapshot() {
+        if (!Files.isRegularFile(tasksFile)) {
+            return;
+        }
+        if (isBinaryFile()) {
+            fileFormat = FileFormat.BINARY;
+            binaryFileCurrent = true;
+            try {
+                restoreLoaded(BinaryTaskFormat.read(tasksFile));
+            } catch (IOException e) {
+                System.out.println("Unable to read tasks from file : " + tasksFile);
+            }
+            return;
+        }
+        if (loadMode == LoadMode.PARALLEL) {
+            try {
+                restoreLoaded(new ParallelTaskLoader(tasksFile).load());
+            } catch (IOException e) {
+                System.out.println("Unable to read tasks from file : " + tasksFile);
+            }
+            return;
+        }
+        TaskLineParser parser;
+        try {
+            parser = new TaskLineParser(readTasksFile());
+        } catch (IOException e) {
+            System.out.println("Unable to read tasks from file : " + tasksFile);
+            return;
+        }
+        if (!parser.nextLine()) {
+            return;
+        }
+        if (!parser.lineEquals(HEADER)) {
+            throw new WrongFileFormatException("Header should be '" + HEADER + "'");
+        }
+
+        if (loadMode == LoadMode.BULK) {
+            List<Task> loaded = new ArrayList<>();
+            while (parser.nextLine()) {
+                try {
+                    loaded.add(parser.parse());
+                } catch (WrongFileFormatException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+            restoreLoaded(loaded);
+            return;
+        }
+
+        while (parser.nextLine()) {
+            try {
+                restoreTask(parser.parse());
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        linkRestoredSubtasks();
     }
 
-    @Override
-    public void cleanSubtasks() {
-        super.cleanSubtasks();
-        cleanTaskType(SUBTASK);
+    /**
+     * Finds a loaded task by the id it had in the file, which differs from the current one
+     * if the sequential load has renumbered it.
+     */
+    private Task findLoaded(Integer fileId) {
+        Integer id = renumberedIds.getOrDefault(fileId, fileId);
+        if (tasks.containsKey(id)) {
+            return tasks.get(id);
+        }
+        return subTasks.containsKey(id) ? subTasks.get(id) : epics.get(id);
     }
 
-    @Override
-    public void cleanEpics() {
-        super.cleanEpics();
-        cleanTaskType(TaskType.EPIC);
+    private boolean isBinaryFile() {
+        try {
+            return Files.isRegularFile(tasksFile) && BinaryTaskFormat.isBinary(tasksFile);
+        } catch (IOException e) {
+            return false;
+        }
     }
 
-    private void cleanTaskType(TaskType type) {
-        List<String> tasks;
+    private void restoreLoaded(List<Task> loaded) {
+        for (Task task : restoreAll(loaded)) {
+            System.out.println(PRIORITY_EXCEPTION_MESSAGE + task);
+        }
+    }
+
+    /**
+     * Decodes the whole tasks file into one buffer, lines are read from it by {@link TaskLineParser}
+     * without creating a string per line.
+     */
+    private CharBuffer readTasksFile() throws IOException {
+        return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(Files.readAllBytes(tasksFile)));
+    }
 
+    private int replayJournal(Path journal) {
+        if (!Files.isRegularFile(journal)) {
+            return 0;
+        }
+        List<String> records;
         try {
-            tasks = Files.readAllLines(tasksFile);
+            records = Files.readAllLines(journal);
+            journalBytes = Files.size(journal);
         } catch (IOException e) {
-            System.out.println("Unable to read tasks from file: " + tasksFile);
-            return;
+            System.out.println("Unable to read task journal: " + journal);
+            return 0;
         }
 
-        if (tasks.isEmpty() || !HEADER.equals(tasks.getFirst())) {
-            throw new WrongFileFormatException("Header should be '" + HEADER + "', but it's: " + tasks.getFirst());
-        } else {
-            tasks.removeFirst(); // remove header
+        for (String record : records) {
+            try {
+                applyRecord(record);
+            } catch (RuntimeException e) {
+                System.out.println("Skipping journal record '" + record + "': " + e.getMessage());
+            }
         }
+        return records.size();
+    }
 
-        String filteredTasks = tasks.stream()
-                .filter(task -> !Objects.requireNonNull(fromString(task)).getType().equals(type))
-                .collect(Collectors.joining("\n"));
+    private void applyRecord(String record) {
+        int separator = record.indexOf(',');
+        String command = separator < 0 ? record.strip() : record.substring(0, separator);
+        String payload = separator < 0 ? "" : record.substring(separator + 1);
+
+        switch (command) {
+            case PUT_RECORD -> restoreTask(fromString(payload));
+            case REMOVE_RECORD -> {
+                String[] items = payload.split(",");
+                int id = Integer.parseInt(items[1].strip());
+                switch (TaskType.valueOf(items[0].strip())) {
+                    case TASK -> super.removeTaskById(id);
+                    case SUBTASK -> super.removeSubtaskById(id);
+                    case EPIC -> super.removeEpicById(id);
+                }
+            }
+            case CLEAN_RECORD -> {
+                switch (TaskType.valueOf(payload.strip())) {
+                    case TASK -> super.cleanTasks();
+                    case SUBTASK -> super.cleanSubtasks();
+                    case EPIC -> super.cleanEpics();
+                }
+            }
+            default -> throw new WrongFileFormatException("Unknown journal record type: " + command);
+        }
+    }
+
+    @Override
+    public void cleanTasks() {
+        if (storageMode == StorageMode.SNAPSHOT) {
+            tasks.keySet().forEach(removedIds::add);
+        }
+        super.cleanTasks();
+        onTypeCleaned(TaskType.TASK);
+    }
 
-        if (!filteredTasks.isBlank()) {
-            filteredTasks = HEADER + "\n" + filteredTasks;
+    @Override
+    public void cleanSubtasks() {
+        if (storageMode == StorageMode.SNAPSHOT) {
+            subTasks.keySet().forEach(removedIds::add);
+            epics.keySet().forEach(dirtyIds::add);
         }
+        super.cleanSubtasks();
+        onTypeCleaned(SUBTASK);
+    }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(tasksFile, StandardCharsets.UTF_8)) {
-            writer.write(filteredTasks);
-        } catch (IOException e) {
-            System.out.println("Unable to clean task with type: " + type.toString());
+    @Override
+    public void cleanEpics() {
+        if (storageMode == StorageMode.SNAPSHOT) {
+            subTasks.keySet().forEach(removedIds::add);
+            epics.keySet().forEach(removedIds::add);
         }
+        super.cleanEpics();
+        onTypeCleaned(TaskType.EPIC);
     }
 
+    private void onTypeCleaned(TaskType type) {
+        if (storageMode == StorageMode.JOURNAL) {
+            appendToJournal(List.of(CLEAN_RECORD + "," + type));
+        } else {
+            dirtyIds.removeAll(removedIds);
+            save();
+        }
+    }
 }
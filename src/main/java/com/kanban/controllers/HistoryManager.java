@@ -12,4 +12,18 @@ public interface HistoryManager {
 
     List<Task> getHistory();
 
+    /**
+     * Returns last viewed tasks, oldest first.
+     *
+     * @param limit max count of returned tasks, not positive value means no limit
+     */
+    List<Task> getHistory(int limit);
+
+    /**
+     * Thread-safe history may record views of parallel readers, see {@link ConcurrentTaskManager}.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
 }
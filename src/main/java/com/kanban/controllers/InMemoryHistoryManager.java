@@ -3,21 +3,32 @@ package com.kanban.controllers;
 import com.kanban.tasks.Task;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
     private final Map<Integer, TaskNode> history;
+    private final int capacity;
     private TaskNode firstTask;
     private TaskNode lastTask;
 
     public InMemoryHistoryManager() {
+        this(0);
+    }
+
+    /**
+     * History keeps at most capacity tasks, the least recently viewed one is evicted first.
+     * Not positive capacity means unbounded history.
+     */
+    public InMemoryHistoryManager(int capacity) {
         this.history = new HashMap<>();
+        this.capacity = capacity;
     }
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         int id = task.getId();
 
         remove(id);
@@ -29,10 +40,26 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         lastTask = newNode;
         history.put(id, newNode);
+        if (capacity > 0 && history.size() > capacity) {
+            TaskNode eldest = firstTask;
+            history.remove(eldest.getTask().getId());
+            removeNode(eldest);
+            evicted(eldest.getTask());
+        }
+    }
+
+    /**
+     * Called when the least recently viewed task is evicted from a full history.
+     */
+    protected void evicted(Task task) {
+    }
+
+    public int getCapacity() {
+        return capacity;
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         List<Task> historyList = new ArrayList<>(history.size());
         TaskNode node = firstTask;
         while (node != null) {
@@ -42,8 +69,30 @@ public class InMemoryHistoryManager implements HistoryManager {
         return historyList;
     }
 
+    /**
+     * Walks back from the most recent task, so only limit nodes are visited.
+     */
+    @Override
+    public synchronized List<Task> getHistory(int limit) {
+        if (limit <= 0 || limit >= history.size()) {
+            return getHistory();
+        }
+        Task[] recent = new Task[limit];
+        TaskNode node = lastTask;
+        for (int i = limit - 1; i >= 0; i--) {
+            recent[i] = node.getTask();
+            node = node.prev;
+        }
+        return new ArrayList<>(Arrays.asList(recent));
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
-    public void remove(int id) {
+    public synchronized void remove(int id) {
         TaskNode node = history.remove(id);
 
         if (node != null) {
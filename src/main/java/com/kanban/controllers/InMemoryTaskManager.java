@@ -1,20 +1,25 @@
 package com.kanban.controllers;
 
 import com.kanban.exception.WrongTaskLogicException;
+import com.kanban.utils.IntKeyMap;
 import com.kanban.utils.TaskStatus;
 import com.kanban.exception.PriorityTaskException;
 import com.kanban.exception.TaskNotFoundException;
 import com.kanban.tasks.Epic;
 import com.kanban.tasks.Subtask;
 import com.kanban.tasks.Task;
+import com.kanban.tasks.TimeSlot;
 import com.kanban.utils.TaskType;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.TreeSet;
 
 public class InMemoryTaskManager implements TaskManager {
@@ -23,14 +28,20 @@ public class InMemoryTaskManager implements TaskManager {
 
     protected final HistoryManager historyManager;
 
-    protected final Map<Integer, Task> tasks = new HashMap<>();
+    protected final IntKeyMap<Task> tasks = new IntKeyMap<>();
 
-    protected final Map<Integer, Subtask> subTasks = new HashMap<>();
+    protected final IntKeyMap<Subtask> subTasks = new IntKeyMap<>();
 
-    protected final Map<Integer, Epic> epics = new HashMap<>();
+    protected final IntKeyMap<Epic> epics = new IntKeyMap<>();
 
     protected TreeSet<Task> prioritisedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
 
+    protected final TaskIntervalIndex intervalIndex = new TaskIntervalIndex();
+
+    private final IntKeyMap<int[]> epicStatusCounters = new IntKeyMap<>();
+
+    private final IntKeyMap<CountedSubtask> countedSubtasks = new IntKeyMap<>();
+
     protected int taskCounter = 0;
 
     public InMemoryTaskManager(HistoryManager historyManager) {
@@ -60,24 +71,23 @@ public class InMemoryTaskManager implements TaskManager {
     public void cleanTasks() {
         for (Task task : tasks.values()) {
             historyManager.remove(task.getId());
-            prioritisedTasks.remove(task);
+            removeFromPrioritizedTasks(task);
         }
         tasks.clear();
     }
 
     @Override
     public void cleanSubtasks() {
+        epicStatusCounters.clear();
+        countedSubtasks.clear();
         for (Epic epic : epics.values()) {
-            epic.getSubTasks().clear();
+            epic.clearSubtasks();
             epic.setStatus(getEpicStatus(epic));
-            epic.setDuration(null);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
         }
 
         for (Subtask task : subTasks.values()) {
             historyManager.remove(task.getId());
-            prioritisedTasks.remove(task);
+            removeFromPrioritizedTasks(task);
         }
         subTasks.clear();
     }
@@ -147,8 +157,11 @@ public class InMemoryTaskManager implements TaskManager {
         subTasks.put(task.getId(), task);
 
         Epic epic = epics.get(task.getEpicId());
-        if (epic != null && !epic.getSubTasks().contains(task)) {
-            epic.addSubtask(task);
+        if (epic != null) {
+            if (!epic.getSubTasks().contains(task)) {
+                epic.addSubtask(task);
+            }
+            countSubtask(task);
             epic.setStatus(getEpicStatus(epic));
         }
         return task.getId();
@@ -167,6 +180,7 @@ public class InMemoryTaskManager implements TaskManager {
                 subTasks.put(subtask.getId(), subtask);
                 addToPrioritizedTasks(subtask);
             }
+            countSubtask(subtask);
         });
         epic.setId(epicId);
         epics.put(epicId, epic);
@@ -208,9 +222,17 @@ public class InMemoryTaskManager implements TaskManager {
         addToPrioritizedTasks(subtask);
         subTasks.replace(id, subtask);
 
+        Integer previousEpicId = countedEpicId(id);
+        countSubtask(subtask);
+        if (previousEpicId != null && !previousEpicId.equals(subtask.getEpicId()) && epics.containsKey(previousEpicId)) {
+            Epic previousEpic = epics.get(previousEpicId);
+            previousEpic.removeSubtask(subtask);
+            previousEpic.setStatus(getEpicStatus(previousEpic));
+        }
+
         Epic epic = epics.get(subtask.getEpicId());
+        epic.updateSubtask(subtask);
         epic.setStatus(getEpicStatus(epic));
-        epics.put(subtask.getEpicId(), epic);
     }
 
     @Override
@@ -218,6 +240,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(epic.getId())) {
             throw new TaskNotFoundException("There is no task with such ID: " + epic.getId());
         }
+        epics.get(epic.getId()).getSubTasks().forEach(subtask -> uncountSubtask(subtask.getId()));
         epic.getSubTasks().forEach(subtask -> {
             Integer subId = subtask.getId();
             if (!subTasks.containsKey(subId)) {
@@ -226,7 +249,8 @@ public class InMemoryTaskManager implements TaskManager {
             removeFromPrioritizedTasks(subTasks.get(subId));
             addToPrioritizedTasks(subtask);
 
-            subTasks.put(subId, subtask);
+            subTasks.put(subtask.getId(), subtask);
+            countSubtask(subtask);
         });
 
         Integer id = epic.getId();
@@ -244,9 +268,10 @@ public class InMemoryTaskManager implements TaskManager {
     public void removeSubtaskById(Integer id) {
         Subtask subtask = subTasks.get(id);
         Integer epicId = subtask.getEpicId();
+        uncountSubtask(id);
         if (epicId != null) {
             Epic epic = epics.get(epicId);
-            epic.getSubTasks().remove(subtask);
+            epic.removeSubtask(subtask);
             epic.setStatus(getEpicStatus(epic));
         }
 
@@ -260,8 +285,10 @@ public class InMemoryTaskManager implements TaskManager {
         for (Subtask subtask : epics.get(id).getSubTasks()) {
             removeFromPrioritizedTasks(subtask);
             subTasks.remove(subtask.getId());
+            countedSubtasks.remove(subtask.getId());
             historyManager.remove(subtask.getId());
         }
+        epicStatusCounters.remove(id);
 
         epics.remove(id);
         historyManager.remove(id);
@@ -280,14 +307,134 @@ public class InMemoryTaskManager implements TaskManager {
         return ++taskCounter;
     }
 
+    /**
+     * Puts already persisted task back with its own id, replacing previous version if it exists.
+     * Used when state is restored from storage, so ids are not regenerated.
+     * A version intersecting with other tasks is rejected and the previous one is kept.
+     */
+    protected void restoreTask(Task task) {
+        Integer id = task.getId();
+        if (!(task instanceof Epic) && !rightPriority(task)) {
+            throw new PriorityTaskException(PRIORITY_EXCEPTION_MESSAGE + task);
+        }
+        switch (task) {
+            case Epic epic -> {
+                Epic previous = epics.put(id, epic);
+                if (previous != null && previous != epic) {
+                    previous.getSubTasks().forEach(epic::addSubtask);
+                }
+            }
+            case Subtask subtask -> {
+                Subtask previous = subTasks.get(id);
+                removeFromPrioritizedTasks(previous);
+                addToPrioritizedTasks(subtask);
+                subTasks.put(id, subtask);
+
+                if (previous != null && previous.getEpicId() != null && epics.containsKey(previous.getEpicId())) {
+                    Epic previousEpic = epics.get(previous.getEpicId());
+                    previousEpic.removeSubtask(previous);
+                    uncountSubtask(id);
+                    previousEpic.setStatus(getEpicStatus(previousEpic));
+                }
+                Epic epic = subtask.getEpicId() == null ? null : epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.addSubtask(subtask);
+                    countSubtask(subtask);
+                    epic.setStatus(getEpicStatus(epic));
+                }
+            }
+            default -> {
+                removeFromPrioritizedTasks(tasks.get(id));
+                addToPrioritizedTasks(task);
+                tasks.put(id, task);
+            }
+        }
+        taskCounter = Math.max(taskCounter, id);
+    }
+
+    /**
+     * Bulk version of {@link #restoreTask} for an empty manager: fills maps in one pass, then checks
+     * all scheduled tasks with a single sort and sweep instead of one index lookup per task.
+     * A task intersecting with an earlier one is not restored.
+     *
+     * @return tasks which were not restored because of intersections
+     */
+    protected List<Task> restoreAll(List<Task> loaded) {
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : loaded) {
+            switch (task) {
+                case Epic epic -> epics.put(epic.getId(), epic);
+                case Subtask subtask -> subTasks.put(subtask.getId(), subtask);
+                default -> tasks.put(task.getId(), task);
+            }
+            taskCounter = Math.max(taskCounter, task.getId());
+        }
+        for (Map<Integer, ? extends Task> storage : List.of(tasks, subTasks)) {
+            for (Task task : storage.values()) {
+                if (task.getStartTime() != null) {
+                    scheduled.add(task);
+                }
+            }
+        }
+
+        scheduled.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+        List<Task> skipped = new ArrayList<>();
+        LocalDateTime previousEnd = null;
+        for (Task task : scheduled) {
+            if (previousEnd != null && !previousEnd.isBefore(task.getStartTime())) {
+                skipped.add(task);
+                storageOf(task.getType()).remove(task.getId());
+                continue;
+            }
+            previousEnd = endOf(task);
+            prioritisedTasks.add(task);
+            intervalIndex.add(task);
+        }
+        linkRestoredSubtasks();
+        return skipped;
+    }
+
+    /**
+     * Links restored subtasks to epics, which were restored after them.
+     */
+    protected void linkRestoredSubtasks() {
+        for (Subtask subtask : subTasks.values()) {
+            Epic epic = subtask.getEpicId() == null ? null : epics.get(subtask.getEpicId());
+            if (epic != null && !epic.getSubTasks().contains(subtask)) {
+                epic.addSubtask(subtask);
+                countSubtask(subtask);
+                epic.setStatus(getEpicStatus(epic));
+            }
+        }
+    }
+
     private TaskStatus getEpicStatus(Epic epic) {
+        int[] counters = epicStatusCounters.get(epic.getId());
+        if (counters == null) {
+            return TaskStatus.DONE;
+        }
+        int total = 0;
+        for (int counter : counters) {
+            total += counter;
+        }
+
+        if (total == 0 || counters[TaskStatus.DONE.ordinal()] == total) {
+            return TaskStatus.DONE;
+        } else if (counters[TaskStatus.NEW.ordinal()] == total) {
+            return TaskStatus.NEW;
+        } else {
+            return TaskStatus.IN_PROGRESS;
+        }
+    }
+
+    private TaskStatus calculateEpicStatus(Epic epic) {
         if (epic.getSubTasks().isEmpty()) {
             return TaskStatus.DONE;
         }
         boolean isNew = true;
         boolean isDone = true;
         for (Subtask tmpSubtask : epic.getSubTasks()) {
-            Subtask subtask = subTasks.get(tmpSubtask.getId());
+            Subtask subtask = subTasks.getOrDefault(tmpSubtask.getId(), tmpSubtask);
             if (isNew && !TaskStatus.NEW.equals(subtask.getStatus())) {
                 isNew = false;
             }
@@ -305,11 +452,291 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
+    /**
+     * Verifies status counters against full rescan of subtasks.
+     *
+     * @return ids of epics, which status calculated from counters differs from the rescan result
+     */
+    public List<Integer> findInconsistentEpics() {
+        List<Integer> inconsistent = new ArrayList<>();
+        for (Epic epic : epics.values()) {
+            if (getEpicStatus(epic) != calculateEpicStatus(epic)) {
+                inconsistent.add(epic.getId());
+            }
+        }
+        return inconsistent;
+    }
+
+    private void countSubtask(Subtask subtask) {
+        uncountSubtask(subtask.getId());
+        if (subtask.getEpicId() == null || subtask.getStatus() == null) {
+            return;
+        }
+        countedSubtasks.put(subtask.getId(), new CountedSubtask(subtask.getEpicId(), subtask.getStatus()));
+        epicStatusCounters.computeIfAbsent(subtask.getEpicId(), epicId -> new int[TaskStatus.values().length])
+                [subtask.getStatus().ordinal()]++;
+    }
+
+    private void uncountSubtask(Integer id) {
+        CountedSubtask counted = countedSubtasks.remove(id);
+        if (counted != null) {
+            epicStatusCounters.get(counted.epicId)[counted.status.ordinal()]--;
+        }
+    }
+
+    private Integer countedEpicId(Integer subtaskId) {
+        CountedSubtask counted = countedSubtasks.get(subtaskId);
+        return counted == null ? null : counted.epicId;
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
         return prioritisedTasks.stream().toList();
     }
 
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        int maxSize = limit > 0 ? limit : Integer.MAX_VALUE;
+        List<Task> result = new ArrayList<>();
+        if (from != null && to != null && !to.isAfter(from)) {
+            return result;
+        }
+        NavigableSet<Task> window = prioritisedTasks;
+
+        if (from != null) {
+            Task fromProbe = timeProbe(from);
+            // tasks don't intersect, so only the last task started before the window can overlap with it
+            Task startedBefore = prioritisedTasks.lower(fromProbe);
+            if (startedBefore != null && endOf(startedBefore).isAfter(from)) {
+                result.add(startedBefore);
+            }
+            window = window.tailSet(fromProbe, true);
+        }
+        if (to != null) {
+            window = window.headSet(timeProbe(to), false);
+        }
+
+        for (Task task : window) {
+            if (result.size() >= maxSize) {
+                break;
+            }
+            result.add(task);
+        }
+        return result;
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime notBefore, int count) {
+        if (durationMinutes < 0) {
+            throw new WrongTaskLogicException("ERROR: duration can't be negative");
+        }
+        List<TimeSlot> slots = new ArrayList<>();
+        LocalDateTime slotStart = notBefore != null ? notBefore : LocalDateTime.now();
+
+        Task startedBefore = prioritisedTasks.lower(timeProbe(slotStart));
+        if (startedBefore != null && !endOf(startedBefore).isBefore(slotStart)) {
+            slotStart = endOf(startedBefore).plusMinutes(1);
+        }
+
+        // tasks intersect even if one ends exactly when another starts, so gaps are bounded with a minute margin
+        for (Task task : prioritisedTasks.tailSet(timeProbe(slotStart), true)) {
+            if (slots.size() >= count) {
+                return slots;
+            }
+            if (slotStart.plusMinutes(durationMinutes).isBefore(task.getStartTime())) {
+                slots.add(new TimeSlot(slotStart, task.getStartTime()));
+            }
+            LocalDateTime nextStart = endOf(task).plusMinutes(1);
+            if (nextStart.isAfter(slotStart)) {
+                slotStart = nextStart;
+            }
+        }
+        if (slots.size() < count) {
+            slots.add(new TimeSlot(slotStart, null));
+        }
+        return slots;
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(long durationMinutes, LocalDateTime notBefore) {
+        return findFreeSlots(durationMinutes, notBefore, 1).getFirst().getStart();
+    }
+
+    /**
+     * When ids of the type are dense, walks them in order and stops as soon as the page is full.
+     * Otherwise makes one pass over the map keeping only the smallest matching ids in a bounded heap.
+     */
+    @Override
+    public List<Task> findTasks(TaskType type, TaskStatus status, Integer epicId, Integer afterId, int limit) {
+        Map<Integer, ? extends Task> source = storageOf(type);
+        int from = afterId == null ? 0 : Math.max(afterId, 0);
+        int capacity = limit > 0 ? limit : Integer.MAX_VALUE;
+        List<Task> page = new ArrayList<>();
+
+        if ((long) taskCounter - from <= 4L * source.size()) {
+            for (int id = from + 1; id > 0 && id <= taskCounter && page.size() < capacity; id++) {
+                Task task = source.get(id);
+                if (task != null && matches(task, status, epicId)) {
+                    page.add(task);
+                }
+            }
+            return page;
+        }
+
+        PriorityQueue<Task> smallest = new PriorityQueue<>(Comparator.comparing(Task::getId).reversed());
+        for (Task task : source.values()) {
+            if (task.getId() > from && matches(task, status, epicId)) {
+                smallest.add(task);
+                if (smallest.size() > capacity) {
+                    smallest.poll();
+                }
+            }
+        }
+        page.addAll(smallest);
+        page.sort(Comparator.comparing(Task::getId));
+        return page;
+    }
+
+    @Override
+    public List<Integer> createAll(List<? extends Task> batch) {
+        validateBatch(batch, false);
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            ids.add(switch (task) {
+                case Epic epic -> createTask(epic);
+                case Subtask subtask -> createTask(subtask);
+                default -> createTask(task);
+            });
+        }
+        return ids;
+    }
+
+    @Override
+    public void updateAll(List<? extends Task> batch) {
+        validateBatch(batch, true);
+        // old versions leave the schedule first, so tasks of the batch can swap their times
+        for (Task task : batch) {
+            removeFromPrioritizedTasks(storageOf(task.getType()).get(task.getId()));
+            if (task instanceof Epic) {
+                epics.get(task.getId()).getSubTasks().forEach(this::removeFromPrioritizedTasks);
+            }
+        }
+        for (Task task : batch) {
+            switch (task) {
+                case Epic epic -> updateTask(epic);
+                case Subtask subtask -> updateTask(subtask);
+                default -> updateTask(task);
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(List<Integer> ids) {
+        for (Integer id : ids) {
+            if (!tasks.containsKey(id) && !subTasks.containsKey(id) && !epics.containsKey(id)) {
+                throw new TaskNotFoundException("There is no task with such ID: " + id);
+            }
+        }
+        for (Integer id : ids) {
+            if (tasks.containsKey(id)) {
+                removeTaskById(id);
+            } else if (subTasks.containsKey(id)) {
+                removeSubtaskById(id);
+            } else if (epics.containsKey(id)) {
+                removeEpicById(id);
+            }
+        }
+    }
+
+    /**
+     * Checks ids and epics of the whole batch, and that its scheduled tasks intersect neither
+     * with each other nor with stored tasks. Stored versions of updated tasks are not counted.
+     */
+    private void validateBatch(List<? extends Task> batch, boolean update) {
+        Set<Integer> replacedIds = new HashSet<>();
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : batch) {
+            if (task == null) {
+                throw new WrongTaskLogicException("ERROR: batch contains null task");
+            }
+            boolean stored = task.getId() != null && storageOf(task.getType()).containsKey(task.getId());
+            if (update && !stored) {
+                throw new TaskNotFoundException("There is no task with such ID: " + task.getId());
+            }
+            if (!update && stored) {
+                throw new WrongTaskLogicException("WARN: This task already exists: " + task.getId());
+            }
+            if (update && !replacedIds.add(task.getId())) {
+                throw new WrongTaskLogicException("WARN: Task is updated twice in one batch: " + task.getId());
+            }
+
+            if (task instanceof Subtask subtask) {
+                if (subtask.getEpicId() == null) {
+                    throw new TaskNotFoundException("ERROR: Epic id of this subtask doesn't exist");
+                }
+                if (update && !epics.containsKey(subtask.getEpicId())) {
+                    throw new TaskNotFoundException("ERROR: Epic of this subtask doesn't exist");
+                }
+            }
+
+            if (task instanceof Epic epic) {
+                if (update) {
+                    epics.get(epic.getId()).getSubTasks().forEach(subtask -> replacedIds.add(subtask.getId()));
+                }
+                for (Subtask subtask : epic.getSubTasks()) {
+                    if (update) {
+                        replacedIds.add(subtask.getId());
+                        scheduled.add(subtask);
+                    } else if (!subTasks.containsKey(subtask.getId())) {
+                        scheduled.add(subtask);
+                    }
+                }
+            } else {
+                scheduled.add(task);
+            }
+        }
+
+        scheduled.removeIf(task -> task.getStartTime() == null);
+        scheduled.sort(Comparator.comparing(Task::getStartTime));
+        LocalDateTime previousEnd = null;
+        for (Task task : scheduled) {
+            if (previousEnd != null && !previousEnd.isBefore(task.getStartTime())) {
+                throw new PriorityTaskException(PRIORITY_EXCEPTION_MESSAGE + task);
+            }
+            LocalDateTime end = endOf(task);
+            if (previousEnd == null || end.isAfter(previousEnd)) {
+                previousEnd = end;
+            }
+            if (intervalIndex.findIntersection(task, replacedIds) != null) {
+                throw new PriorityTaskException(PRIORITY_EXCEPTION_MESSAGE + task);
+            }
+        }
+    }
+
+    private Map<Integer, ? extends Task> storageOf(TaskType type) {
+        return switch (type) {
+            case TASK -> tasks;
+            case SUBTASK -> subTasks;
+            case EPIC -> epics;
+        };
+    }
+
+    private static boolean matches(Task task, TaskStatus status, Integer epicId) {
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        return epicId == null || task instanceof Subtask subtask && epicId.equals(subtask.getEpicId());
+    }
+
+    protected static Task timeProbe(LocalDateTime time) {
+        return new Task(null, null, null, null, time, null);
+    }
+
+    protected static LocalDateTime endOf(Task task) {
+        LocalDateTime end = task.getEndTime();
+        return end != null ? end : task.getStartTime();
+    }
+
     private void addToPrioritizedTasks(Task task) {
         if (task == null) {
             throw new PriorityTaskException("ERROR: unable to add null to prioritised tasks");
@@ -325,13 +752,19 @@ public class InMemoryTaskManager implements TaskManager {
 
         if (task.getStartTime() != null) {
             prioritisedTasks.add(task);
+            intervalIndex.add(task);
         }
     }
 
     private void removeFromPrioritizedTasks(Task task) {
-        if (task != null && task.getStartTime() != null) {
+        if (task == null) {
+            return;
+        }
+        // the set compares by start time only, so a stale version must not remove another task from that time
+        if (task.getStartTime() != null && intervalIndex.contains(task.getId())) {
             prioritisedTasks.remove(task);
         }
+        intervalIndex.remove(task.getId());
     }
 
     @Override
@@ -339,6 +772,11 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
     public boolean prioritiesAreRight(Task task1, Task task2) {
         LocalDateTime start1 = task1.getStartTime();
         LocalDateTime start2 = task2.getStartTime();
@@ -350,7 +788,18 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     public boolean rightPriority(Task task) {
-        return prioritisedTasks.stream()
-                .allMatch(t1 -> prioritiesAreRight(t1, task));
+        return !intervalIndex.intersects(task);
+    }
+
+    private static class CountedSubtask {
+
+        final Integer epicId;
+
+        final TaskStatus status;
+
+        CountedSubtask(Integer epicId, TaskStatus status) {
+            this.epicId = epicId;
+            this.status = status;
+        }
     }
 }
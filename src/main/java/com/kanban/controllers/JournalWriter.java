@@ -0,0 +1,288 @@
+package com.kanban.controllers;
+
+import com.kanban.exception.ManagerSaveException;
+import com.kanban.utils.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Appends journal records on its own thread. Records queued by concurrent callers are written together
+ * in one write, and fsync is done according to {@link FsyncPolicy}. Future of every append is completed
+ * only after its records are synced to disk.
+ */
+public class JournalWriter implements AutoCloseable {
+
+    /**
+     * Upper bound of sync delay for {@link FsyncPolicy#RECORD_COUNT}, so waiting callers are not stuck
+     * when records stop coming.
+     */
+    public static final long MAX_SYNC_DELAY_MILLIS = 1000;
+
+    private final Path file;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private final List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+
+    private volatile FsyncPolicy policy;
+    private volatile long policyValue;
+    private boolean closed;
+
+    private FileChannel channel;
+    private int unsyncedRecords;
+    private long lastSync = System.currentTimeMillis();
+
+    public JournalWriter(Path file, FsyncPolicy policy, long policyValue) {
+        this.file = file;
+        this.policy = policy;
+        this.policyValue = policyValue;
+        this.thread = new Thread(this::run, "task-journal-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void setPolicy(FsyncPolicy policy, long policyValue) {
+        this.policy = policy;
+        this.policyValue = policyValue;
+    }
+
+    public CompletableFuture<Void> append(List<String> records) {
+        return enqueue(new Entry(records, null, null, false));
+    }
+
+    /**
+     * Syncs everything queued before and moves the journal file to the target, next records go to a new file.
+     * If the target is left by an unfinished rotation, the journal is appended to it instead of replacing it.
+     */
+    public CompletableFuture<Void> rotate(Path target) {
+        return rotate(target, null);
+    }
+
+    /**
+     * Rotates the journal like {@link #rotate(Path)} and starts the new file with records supplied
+     * on the writer thread, the future is completed once they are synced.
+     */
+    public CompletableFuture<Void> rotate(Path target, Supplier<List<String>> initialRecords) {
+        return enqueue(new Entry(null, target, initialRecords, false));
+    }
+
+    @Override
+    public void close() {
+        Entry closeEntry = new Entry(null, null, null, true);
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            queue.add(closeEntry);
+            closed = true;
+        }
+        closeEntry.done.join();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(Entry entry) {
+        if (closed) {
+            throw new ManagerSaveException("Task journal is already closed");
+        }
+        queue.add(entry);
+        return entry.done;
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                Entry first = unsynced.isEmpty() ? queue.take() : queue.poll(syncDelay(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    sync();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (process(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return true when writer is closed
+     */
+    private boolean process(List<Entry> batch) {
+        StringBuilder content = new StringBuilder();
+        int records = 0;
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+
+        for (Entry entry : batch) {
+            if (entry.records != null) {
+                for (String record : entry.records) {
+                    content.append(record).append('\n');
+                }
+                records += entry.records.size();
+                written.add(entry.done);
+                continue;
+            }
+
+            try {
+                write(content, records, written);
+                sync();
+                content.setLength(0);
+                records = 0;
+                written = new ArrayList<>();
+                closeChannel();
+                if (entry.rotateTarget != null && Files.exists(file)) {
+                    moveTo(entry.rotateTarget);
+                }
+                if (entry.initialRecords != null) {
+                    List<String> initial = entry.initialRecords.get();
+                    for (String record : initial) {
+                        content.append(record).append('\n');
+                    }
+                    write(content, initial.size(), written);
+                    sync();
+                    content.setLength(0);
+                }
+                entry.done.complete(null);
+            } catch (IOException | RuntimeException e) {
+                fail(written, e);
+                content.setLength(0);
+                records = 0;
+                written = new ArrayList<>();
+                entry.done.completeExceptionally(e);
+            }
+            if (entry.close) {
+                return true;
+            }
+        }
+
+        try {
+            write(content, records, written);
+            if (shouldSync()) {
+                sync();
+            }
+        } catch (IOException e) {
+            fail(written, e);
+        }
+        return false;
+    }
+
+    private void write(CharSequence content, int records, List<CompletableFuture<Void>> written) throws IOException {
+        if (records == 0) {
+            return;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(content.toString());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        unsyncedRecords += records;
+        unsynced.addAll(written);
+    }
+
+    private void moveTo(Path target) throws IOException {
+        if (!Files.exists(target)) {
+            Files.move(file, target);
+            return;
+        }
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel destination = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long position = 0;
+            long size = source.size();
+            while (position < size) {
+                position += source.transferTo(position, size - position, destination);
+            }
+            destination.force(false);
+        }
+        Files.delete(file);
+    }
+
+    private boolean shouldSync() {
+        return switch (policy) {
+            case EVERY_WRITE -> true;
+            case INTERVAL_MILLIS -> System.currentTimeMillis() - lastSync >= policyValue;
+            case RECORD_COUNT -> unsyncedRecords >= policyValue
+                    || System.currentTimeMillis() - lastSync >= MAX_SYNC_DELAY_MILLIS;
+        };
+    }
+
+    private long syncDelay() {
+        long delay = policy == FsyncPolicy.INTERVAL_MILLIS ? policyValue : MAX_SYNC_DELAY_MILLIS;
+        return Math.max(0, lastSync + delay - System.currentTimeMillis());
+    }
+
+    private void sync() {
+        try {
+            if (channel != null && unsyncedRecords > 0) {
+                channel.force(false);
+            }
+            unsynced.forEach(future -> future.complete(null));
+        } catch (IOException e) {
+            fail(unsynced, e);
+        }
+        unsynced.clear();
+        unsyncedRecords = 0;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private void fail(List<CompletableFuture<Void>> futures, Exception e) {
+        futures.forEach(future -> future.completeExceptionally(e));
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Unable to close task journal: " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    private static class Entry {
+
+        final List<String> records;
+
+        final Path rotateTarget;
+
+        final Supplier<List<String>> initialRecords;
+
+        final boolean close;
+
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Entry(List<String> records, Path rotateTarget, Supplier<List<String>> initialRecords, boolean close) {
+            this.records = records;
+            this.rotateTarget = rotateTarget;
+            this.initialRecords = initialRecords;
+            this.close = close;
+        }
+    }
+}
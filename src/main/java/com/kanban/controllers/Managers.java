@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.kanban.adapter.DurationAdapter;
 import com.kanban.adapter.LocalDateTimeAdapter;
+import com.kanban.adapter.TaskAdapterFactory;
 import com.kanban.controllers.HistoryManager;
 import com.kanban.controllers.InMemoryHistoryManager;
 import com.kanban.controllers.InMemoryTaskManager;
@@ -17,14 +18,52 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(new InMemoryTaskManager(getDefaultHistory()));
+    }
+
+    /**
+     * To record views in background, so parallel readers don't contend on the history,
+     * pass a manager with {@link #getAsyncHistory} history and close that history when done.
+     */
+    public static TaskManager getConcurrent(TaskManager taskManager) {
+        return new ConcurrentTaskManager(taskManager);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getArrayHistory(int capacity) {
+        return new ArrayHistoryManager(capacity);
+    }
+
+    /**
+     * History which records views in background, the returned manager should be closed when no longer needed.
+     */
+    public static AsyncHistoryManager getAsyncHistory(HistoryManager historyManager) {
+        return new AsyncHistoryManager(historyManager);
+    }
+
+    public static HistoryManager getShardedHistory(int userCapacity, int maxUsers) {
+        return new ShardedHistoryManager(userCapacity, maxUsers);
+    }
+
+    private static final Gson GSON = createGson();
+
     public static Gson getGson() {
+        return GSON;
+    }
+
+    private static Gson createGson() {
         GsonBuilder builder = new GsonBuilder();
         builder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
         builder.registerTypeAdapter(Duration.class, new DurationAdapter());
+        builder.registerTypeAdapterFactory(new TaskAdapterFactory());
         return builder.create();
     }
 }
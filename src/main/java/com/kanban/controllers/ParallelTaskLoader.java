@@ -0,0 +1,125 @@
+package com.kanban.controllers;
+
+import com.kanban.exception.WrongFileFormatException;
+import com.kanban.tasks.Task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads a tasks file by memory-mapping line-aligned chunks of it and parsing them in parallel
+ * on the common fork-join pool. Chunks are mapped separately, so files over 2 GB are supported.
+ * Tasks are returned in file order, lines which can't be parsed are reported and skipped.
+ */
+public class ParallelTaskLoader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int BOUNDARY_WINDOW = 4096;
+
+    private final Path file;
+
+    private final int chunkSize;
+
+    public ParallelTaskLoader(Path file) {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelTaskLoader(Path file, int chunkSize) {
+        this.file = file;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<Task> load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = split(channel);
+            List<ForkJoinTask<List<Task>>> parts = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                long[] chunk = chunks.get(i);
+                boolean first = i == 0;
+                parts.add(ForkJoinPool.commonPool().submit(() -> parseChunk(channel, chunk[0], chunk[1], first)));
+            }
+
+            List<Task> tasks = new ArrayList<>();
+            for (ForkJoinTask<List<Task>> part : parts) {
+                tasks.addAll(part.join());
+            }
+            return tasks;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Cuts the file into chunks of about chunkSize bytes, each one ending right after a line break.
+     * Line break byte never occurs inside a multibyte UTF-8 character, so chunks are decoded independently.
+     */
+    private List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_WINDOW);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            boolean found = false;
+            while (end < size && !found) {
+                window.clear();
+                int read = channel.read(window, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        end += i + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    end += read;
+                }
+            }
+            end = Math.min(end, size);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new WrongFileFormatException("Line is too long in file: " + file);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private List<Task> parseChunk(FileChannel channel, long start, long end, boolean first) {
+        CharBuffer content;
+        try {
+            content = StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        TaskLineParser parser = new TaskLineParser(content);
+        List<Task> tasks = new ArrayList<>();
+        if (first && parser.nextLine() && !parser.lineEquals(FileBackedTaskManager.HEADER)) {
+            throw new WrongFileFormatException("Header should be '" + FileBackedTaskManager.HEADER + "'");
+        }
+        while (parser.nextLine()) {
+            try {
+                tasks.add(parser.parse());
+            } catch (WrongFileFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,207 @@
+package com.kanban.controllers;
+
+import com.kanban.tasks.Task;
+import com.kanban.utils.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Wraps a {@link HistoryManager} and appends a record to the history file on every add and remove.
+ * Records are queued to a {@link JournalWriter}, which writes them in batches on its own thread,
+ * so reading a task never waits for disk. Records are kept only after {@link #restore} is called.
+ * When the file gets too many records, it is rotated and started again from the current history.
+ * The history is read for that on the writer thread, so the wrapped history must be thread-safe.
+ * Records don't keep the user, so a per user {@link ShardedHistoryManager} can't be wrapped.
+ */
+public class PersistentHistoryManager implements HistoryManager, AutoCloseable {
+
+    public static final String COMPACTED_SUFFIX = ".old";
+    public static final int DEFAULT_COMPACTION_RECORDS = 10_000;
+    public static final long SYNC_INTERVAL_MILLIS = 1000;
+    private static final String VIEW_RECORD = "VIEW";
+    private static final String FORGET_RECORD = "FORGET";
+    private static final Function<Throwable, Void> REPORT_FAILURE = e -> {
+        System.out.println("Unable to write view history: " + e.getMessage());
+        return null;
+    };
+
+    private final HistoryManager delegate;
+    private final Path file;
+    private final Path compactedFile;
+
+    private JournalWriter writer;
+    private boolean recording;
+    private int records;
+    private int compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private volatile int snapshotRecords;
+
+    public PersistentHistoryManager(HistoryManager delegate, Path file) {
+        if (delegate instanceof ShardedHistoryManager) {
+            throw new IllegalArgumentException("Per user history can't be persisted");
+        }
+        this.delegate = delegate;
+        this.file = file;
+        this.compactedFile = file.resolveSibling(file.getFileName() + COMPACTED_SUFFIX);
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+        record(VIEW_RECORD, task.getId());
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+        record(FORGET_RECORD, id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return delegate.getHistory(limit);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return delegate.isThreadSafe();
+    }
+
+    public synchronized void setCompactionRecords(int compactionRecords) {
+        this.compactionRecords = compactionRecords;
+    }
+
+    /**
+     * Replays the history file (and the rotated one left by an unfinished compaction), adds tasks found
+     * by lookup to the wrapped history in the same order, and rewrites the file with them only.
+     * Ids which lookup doesn't know are dropped.
+     */
+    public synchronized void restore(Function<Integer, ? extends Task> lookup) {
+        Set<Integer> order = new LinkedHashSet<>();
+        readRecords(compactedFile, order);
+        readRecords(file, order);
+
+        StringBuilder content = new StringBuilder();
+        int restored = 0;
+        for (Integer id : order) {
+            Task task = lookup.apply(id);
+            if (task != null) {
+                delegate.add(task);
+                content.append(VIEW_RECORD).append(',').append(task.getId()).append('\n');
+                restored++;
+            }
+        }
+        if (!order.isEmpty() || Files.exists(compactedFile)) {
+            Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.writeString(tmpFile, content);
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(compactedFile);
+            } catch (IOException e) {
+                System.out.println("Unable to rewrite view history: " + e.getMessage());
+            }
+        }
+        records = 0;
+        snapshotRecords = restored;
+        recording = true;
+    }
+
+    /**
+     * Writes all queued records and stops the writer thread.
+     */
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void record(String type, int id) {
+        if (!recording) {
+            return;
+        }
+        writer().append(List.of(type + "," + id)).exceptionally(REPORT_FAILURE);
+        int snapshot = snapshotRecords;
+        if (++records + snapshot >= Math.max(compactionRecords, 2 * snapshot)) {
+            compact();
+        }
+    }
+
+    /**
+     * Rotates the file after already queued records, and the writer thread starts the new one
+     * with the current history, so the request thread doesn't copy it. The rotated file is dropped
+     * once the new one is synced. Records queued after the rotation may repeat views
+     * already in the snapshot, which replays to the same history.
+     */
+    private void compact() {
+        records = 0;
+        writer().rotate(compactedFile, this::snapshot)
+                .thenRun(() -> {
+                    try {
+                        Files.deleteIfExists(compactedFile);
+                    } catch (IOException e) {
+                        System.out.println("Unable to remove rotated view history: " + e.getMessage());
+                    }
+                })
+                .exceptionally(REPORT_FAILURE);
+    }
+
+    private List<String> snapshot() {
+        List<String> snapshot = new ArrayList<>();
+        for (Task task : delegate.getHistory()) {
+            snapshot.add(VIEW_RECORD + "," + task.getId());
+        }
+        snapshotRecords = snapshot.size();
+        return snapshot;
+    }
+
+    private JournalWriter writer() {
+        if (writer == null) {
+            writer = new JournalWriter(file, FsyncPolicy.INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS);
+        }
+        return writer;
+    }
+
+    private static void readRecords(Path source, Set<Integer> order) {
+        if (!Files.isRegularFile(source)) {
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(source);
+        } catch (IOException e) {
+            System.out.println("Unable to read view history: " + source);
+            return;
+        }
+        for (String line : lines) {
+            int separator = line.indexOf(',');
+            try {
+                Integer id = Integer.valueOf(line.substring(separator + 1).strip());
+                String type = separator < 0 ? "" : line.substring(0, separator);
+                if (type.equals(VIEW_RECORD)) {
+                    order.remove(id);
+                    order.add(id);
+                } else if (type.equals(FORGET_RECORD)) {
+                    order.remove(id);
+                } else {
+                    System.out.println("Skipping view history record '" + line + "'");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Skipping view history record '" + line + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.kanban.controllers;
+
+import com.kanban.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a separate view history per user. User of the current thread is set by {@link #setCurrentUser},
+ * calls without a user go to {@value #ANONYMOUS_USER} history. Users are spread over stripes by hash,
+ * each stripe has its own lock, so views of different users rarely contend.
+ * Every user history is bounded by userCapacity, and with maxUsers the least recently active users
+ * are dropped from their stripe. Users who viewed a task are indexed by its id, so removing a task
+ * visits only their histories. A user leaves the index of a task when their history evicts it
+ * or the user is dropped, so the index holds only tasks which are in some history.
+ */
+public class ShardedHistoryManager implements HistoryManager {
+
+    public static final String ANONYMOUS_USER = "anonymous";
+    public static final int DEFAULT_STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1;
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+    private final Stripe[] stripes;
+    private final int userCapacity;
+    private final Map<Integer, Set<String>> viewers = new ConcurrentHashMap<>();
+
+    public ShardedHistoryManager(int userCapacity) {
+        this(userCapacity, 0);
+    }
+
+    /**
+     * @param userCapacity max count of tasks in a user history, not positive value means unbounded
+     * @param maxUsers     max count of kept histories, not positive value means unbounded
+     */
+    public ShardedHistoryManager(int userCapacity, int maxUsers) {
+        this.userCapacity = userCapacity;
+        this.stripes = new Stripe[DEFAULT_STRIPES];
+        int usersPerStripe = maxUsers > 0 ? (maxUsers + DEFAULT_STRIPES - 1) / DEFAULT_STRIPES : 0;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(usersPerStripe);
+        }
+    }
+
+    /**
+     * Binds user to the current thread until {@link #clearCurrentUser} is called.
+     */
+    public static void setCurrentUser(String user) {
+        CURRENT_USER.set(user);
+    }
+
+    public static void clearCurrentUser() {
+        CURRENT_USER.remove();
+    }
+
+    public static String getCurrentUser() {
+        String user = CURRENT_USER.get();
+        return user == null || user.isBlank() ? ANONYMOUS_USER : user;
+    }
+
+    @Override
+    public void add(Task task) {
+        String user = getCurrentUser();
+        Stripe stripe = stripeOf(user);
+        stripe.lock.lock();
+        try {
+            stripe.histories.computeIfAbsent(user, this::newHistory).add(task);
+            viewers.compute(task.getId(), (id, users) -> {
+                Set<String> indexed = users == null ? ConcurrentHashMap.newKeySet() : users;
+                indexed.add(user);
+                return indexed;
+            });
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removed task disappears from histories of all users.
+     */
+    @Override
+    public void remove(int id) {
+        Set<String> users = viewers.remove(id);
+        if (users == null) {
+            return;
+        }
+        for (String user : users) {
+            Stripe stripe = stripeOf(user);
+            stripe.lock.lock();
+            try {
+                HistoryManager history = stripe.histories.get(user);
+                if (history != null) {
+                    history.remove(id);
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(0);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        String user = getCurrentUser();
+        Stripe stripe = stripeOf(user);
+        stripe.lock.lock();
+        try {
+            HistoryManager history = stripe.histories.get(user);
+            return history == null ? new ArrayList<>() : history.getHistory(limit);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    public int getUserCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.histories.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Count of tasks which are in the history of at least one user.
+     */
+    public int getIndexedTaskCount() {
+        return viewers.size();
+    }
+
+    private HistoryManager newHistory(String user) {
+        return new InMemoryHistoryManager(userCapacity) {
+            @Override
+            protected void evicted(Task task) {
+                unindex(task.getId(), user);
+            }
+        };
+    }
+
+    private void unindex(int id, String user) {
+        viewers.computeIfPresent(id, (taskId, users) -> {
+            users.remove(user);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private Stripe stripeOf(String user) {
+        int hash = user.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private class Stripe {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final Map<String, HistoryManager> histories;
+
+        Stripe(int maxUsers) {
+            this.histories = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, HistoryManager> eldest) {
+                    if (maxUsers <= 0 || size() <= maxUsers) {
+                        return false;
+                    }
+                    for (Task task : eldest.getValue().getHistory()) {
+                        unindex(task.getId(), eldest.getKey());
+                    }
+                    return true;
+                }
+            };
+        }
+    }
+}
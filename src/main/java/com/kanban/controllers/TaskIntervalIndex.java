@@ -0,0 +1,224 @@
+package com.kanban.controllers;
+
+import com.kanban.tasks.Task;
+import com.kanban.utils.IntKeyMap;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Balanced (AVL) interval tree over scheduled tasks. Every node keeps the maximum end time
+ * of its subtree, so an overlap check visits only O(log N) nodes instead of the whole schedule.
+ * Intervals are closed: a task ending exactly when another starts is treated as an intersection.
+ */
+public class TaskIntervalIndex {
+
+    private final IntKeyMap<Node> nodesById = new IntKeyMap<>();
+
+    private Node root;
+
+    public void add(Task task) {
+        if (task == null || task.getId() == null || task.getStartTime() == null) {
+            return;
+        }
+        remove(task.getId());
+        Node node = new Node(task.getId(), task.getStartTime(), endOf(task));
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+    }
+
+    public void remove(Integer id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node.start, node.id);
+        }
+    }
+
+    public void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public boolean contains(Integer id) {
+        return nodesById.containsKey(id);
+    }
+
+    public boolean intersects(Task task) {
+        return findIntersection(task) != null;
+    }
+
+    /**
+     * Returns id of any indexed task which intersects with the given one, or null.
+     * The task itself (same id) is ignored, so it can be checked before its own update.
+     */
+    public Integer findIntersection(Task task) {
+        return findIntersection(task, task == null || task.getId() == null ? Set.of() : Set.of(task.getId()));
+    }
+
+    /**
+     * Same as {@link #findIntersection(Task)}, but ignores all tasks with given ids.
+     */
+    public Integer findIntersection(Task task, Set<Integer> excludedIds) {
+        if (task == null || task.getStartTime() == null) {
+            return null;
+        }
+        return findIntersection(root, task.getStartTime(), endOf(task), excludedIds);
+    }
+
+    private Integer findIntersection(Node node, LocalDateTime start, LocalDateTime end, Set<Integer> excludedIds) {
+        if (node == null || node.maxEnd.isBefore(start)) {
+            return null;
+        }
+
+        Integer found = findIntersection(node.left, start, end, excludedIds);
+        if (found != null) {
+            return found;
+        }
+
+        if (node.start.isAfter(end)) {
+            return null; // everything to the right starts even later
+        }
+
+        if (!node.end.isBefore(start) && !excludedIds.contains(node.id)) {
+            return node.id;
+        }
+        return findIntersection(node.right, start, end, excludedIds);
+    }
+
+    private static LocalDateTime endOf(Task task) {
+        LocalDateTime end = task.getEndTime();
+        return end != null ? end : task.getStartTime();
+    }
+
+    private static int compare(LocalDateTime start1, Integer id1, LocalDateTime start2, Integer id2) {
+        int result = start1.compareTo(start2);
+        return result != 0 ? result : id1.compareTo(id2);
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node.start, node.id) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, LocalDateTime start, Integer id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node.start, node.id);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static class Node {
+
+        final Integer id;
+
+        final LocalDateTime start;
+
+        final LocalDateTime end;
+
+        LocalDateTime maxEnd;
+
+        int height = 1;
+
+        Node left;
+
+        Node right;
+
+        Node(Integer id, LocalDateTime start, LocalDateTime end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.kanban.controllers;
+
+import com.kanban.exception.WrongFileFormatException;
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.kanban.utils.TaskStatus;
+import com.kanban.utils.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+/**
+ * Cursor over lines of the CSV task format. Fields are kept as offsets into the underlying characters,
+ * and ids, enums, times and durations are decoded from them in place, so only the task itself,
+ * its name and description are allocated per line. Fields are split the same way as
+ * {@link FileBackedTaskManager#fromString(String)} does it.
+ */
+public class TaskLineParser {
+
+    private static final int MANDATORY_FIELDS = 5;
+    private static final int MAX_FIELDS = 8;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final CharSequence content;
+    private final int end;
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private int position;
+    private int lineStart;
+    private int lineEnd;
+    private int fieldCount;
+
+    public TaskLineParser(CharSequence content) {
+        this(content, 0, content.length());
+    }
+
+    public TaskLineParser(CharSequence content, int start, int end) {
+        this.content = content;
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Moves to the next line, returns false if there are no more lines.
+     */
+    public boolean nextLine() {
+        if (position >= end) {
+            return false;
+        }
+        lineStart = position;
+        int next = position;
+        while (next < end && content.charAt(next) != '\n') {
+            next++;
+        }
+        position = next + 1;
+        if (next > lineStart && content.charAt(next - 1) == '\r') {
+            next--;
+        }
+        lineEnd = next;
+        split();
+        return true;
+    }
+
+    public boolean lineEquals(String text) {
+        if (lineEnd - lineStart != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (content.charAt(lineStart + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String line() {
+        return content.subSequence(lineStart, lineEnd).toString();
+    }
+
+    public Task parse() {
+        checkFieldCount();
+        try {
+            int id = parseInt(0);
+            TaskType type = parseEnum(1, TYPES);
+            String name = string(2);
+            TaskStatus status = parseEnum(3, STATUSES);
+            String description = string(4);
+            LocalDateTime startTime = fieldCount > 6 && !isBlank(6) ? parseTime(6) : null;
+            Long duration = fieldCount > 7 && !isBlank(7) ? parseLong(7) : null;
+
+            return switch (type) {
+                case TASK -> new Task(name, description, status, id, startTime, duration);
+                case EPIC -> new Epic(name, description, status, id, new HashSet<>());
+                case SUBTASK -> new Subtask(name, description, status, id, parseInt(5), startTime, duration);
+            };
+        } catch (Exception e) {
+            throw new WrongFileFormatException("Can't parse task '" + line() + "', because:\n" + e.getMessage());
+        }
+    }
+
+    private void checkFieldCount() {
+        if (fieldCount < MANDATORY_FIELDS) {
+            throw new WrongFileFormatException("Wrong count of params for task in line: " + line()
+                    + " , format should be: 'id, task type, task name, task status, task description, epicId (if it's subtask)'");
+        }
+    }
+
+    /**
+     * Like {@code line.strip().split(",")}: trailing empty fields are not counted.
+     */
+    private void split() {
+        int start = lineStart;
+        int stop = lineEnd;
+        while (start < stop && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        while (stop > start && Character.isWhitespace(content.charAt(stop - 1))) {
+            stop--;
+        }
+
+        int count = 0;
+        int counted = 0;
+        int fieldStart = start;
+        for (int i = start; i <= stop; i++) {
+            if (i == stop || content.charAt(i) == ',') {
+                if (count < MAX_FIELDS) {
+                    fieldStarts[count] = fieldStart;
+                    fieldEnds[count] = i;
+                }
+                count++;
+                if (i > fieldStart) {
+                    counted = count;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        fieldCount = counted;
+    }
+
+    private int start(int field) {
+        if (field >= fieldCount) {
+            throw new IndexOutOfBoundsException("There is no field " + field);
+        }
+        int start = fieldStarts[field];
+        while (start < fieldEnds[field] && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private int end(int field) {
+        int start = fieldStarts[field];
+        int stop = fieldEnds[field];
+        while (stop > start && Character.isWhitespace(content.charAt(stop - 1))) {
+            stop--;
+        }
+        return stop;
+    }
+
+    private boolean isBlank(int field) {
+        return start(field) == end(field);
+    }
+
+    private String string(int field) {
+        return content.subSequence(start(field), end(field)).toString();
+    }
+
+    private int parseInt(int field) {
+        long value = parseLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + string(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    private long parseLong(int field) {
+        int start = start(field);
+        int stop = end(field);
+        boolean negative = start < stop && content.charAt(start) == '-';
+        if (start < stop && (negative || content.charAt(start) == '+')) {
+            start++;
+        }
+        if (start == stop || stop - start > 18) {
+            throw new NumberFormatException("For input string: \"" + string(field) + "\"");
+        }
+        long value = 0;
+        for (int i = start; i < stop; i++) {
+            char c = content.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("For input string: \"" + string(field) + "\"");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private <E extends Enum<E>> E parseEnum(int field, E[] constants) {
+        int start = start(field);
+        int length = end(field) - start;
+        for (E constant : constants) {
+            String name = constant.name();
+            if (name.length() == length && regionMatches(start, name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + string(field));
+    }
+
+    private boolean regionMatches(int start, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (content.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes yyyy-MM-ddTHH:mm[:ss] in place, other ISO forms go to {@link LocalDateTime#parse}.
+     */
+    private LocalDateTime parseTime(int field) {
+        int s = start(field);
+        int length = end(field) - s;
+        if ((length == 16 || length == 19)
+                && content.charAt(s + 4) == '-' && content.charAt(s + 7) == '-' && content.charAt(s + 10) == 'T'
+                && content.charAt(s + 13) == ':' && (length == 16 || content.charAt(s + 16) == ':')) {
+            return LocalDateTime.of(digits(s, 4), digits(s + 5, 2), digits(s + 8, 2),
+                    digits(s + 11, 2), digits(s + 14, 2), length == 19 ? digits(s + 17, 2) : 0);
+        }
+        return LocalDateTime.parse(content.subSequence(s, s + length));
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = content.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Wrong digit '" + c + "' in time");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
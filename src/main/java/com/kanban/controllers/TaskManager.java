@@ -3,7 +3,11 @@ package com.kanban.controllers;
 import com.kanban.tasks.Epic;
 import com.kanban.tasks.Subtask;
 import com.kanban.tasks.Task;
+import com.kanban.tasks.TimeSlot;
+import com.kanban.utils.TaskStatus;
+import com.kanban.utils.TaskType;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TaskManager {
@@ -48,5 +52,59 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
+    /**
+     * Returns last viewed tasks, oldest first.
+     *
+     * @param limit max count of returned tasks, not positive value means no limit
+     */
+    List<Task> getHistory(int limit);
+
     List<Task> getPrioritizedTasks();
+
+    /**
+     * Returns prioritized tasks, which intersect with [from, to) window, ordered by start time.
+     * The window is empty if to is not after from.
+     *
+     * @param from  window start, null means unbounded
+     * @param to    window end, null means unbounded
+     * @param limit max count of returned tasks, not positive value means no limit
+     */
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Returns earliest free slots, where task with given duration can be created without intersections.
+     *
+     * @param notBefore slots start not before this time, null means now
+     */
+    List<TimeSlot> findFreeSlots(long durationMinutes, LocalDateTime notBefore, int count);
+
+    LocalDateTime findFreeSlot(long durationMinutes, LocalDateTime notBefore);
+
+    /**
+     * Returns one page of tasks of given type ordered by id, without copying all tasks of this type.
+     *
+     * @param status  only tasks with this status, null means any
+     * @param epicId  only subtasks of this epic, null means any
+     * @param afterId page starts after this id, null means from the beginning
+     * @param limit   max count of returned tasks, not positive value means no limit
+     */
+    List<Task> findTasks(TaskType type, TaskStatus status, Integer epicId, Integer afterId, int limit);
+
+    /**
+     * Creates tasks, subtasks and epics in the given order. The whole batch is validated first,
+     * so either all of them are created or none.
+     *
+     * @return ids of created tasks in the same order
+     */
+    List<Integer> createAll(List<? extends Task> tasks);
+
+    /**
+     * Updates all given tasks or none of them. Tasks of the batch may take each other's time.
+     */
+    void updateAll(List<? extends Task> tasks);
+
+    /**
+     * Removes tasks, subtasks and epics with given ids, or none of them if any id doesn't exist.
+     */
+    void removeAll(List<Integer> ids);
 }
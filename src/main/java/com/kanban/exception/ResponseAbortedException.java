@@ -0,0 +1,8 @@
+package com.kanban.exception;
+
+public class ResponseAbortedException extends RuntimeException {
+
+    public ResponseAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
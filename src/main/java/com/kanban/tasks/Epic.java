@@ -6,17 +6,28 @@ import com.kanban.exception.WrongTaskLogicException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 public class Epic extends Task {
 
     private final Set<Subtask> subTasks;
     private LocalDateTime endTime;
 
+    // Time bounds of subtasks, kept up to date on every change instead of resorting all subtasks.
+    // Transient, so they are not serialized and are rebuilt lazily after deserialization.
+    private transient Map<Subtask, TimeSpan> timeSpans;
+    private transient TreeMap<LocalDateTime, Integer> startTimes;
+    private transient TreeMap<LocalDateTime, Integer> endTimes;
+    private transient long durationSum;
+    // Stored subtasks by id, so an update with a new instance finds the stored one without a scan.
+    // Ids may change after a subtask is added, so a found subtask is checked and the index is rebuilt on a miss.
+    private transient Map<Integer, Subtask> storedById;
+
     public Epic(String name, String description, TaskStatus status, Integer id, Set<Subtask> subtasks) {
         super(name, description, status, id);
         isCorrectSubtasksIds(subtasks, id);
@@ -47,6 +58,18 @@ public class Epic extends Task {
         this.subTasks = new HashSet<>();
     }
 
+    /**
+     * Copies the epic with copies of its subtasks.
+     */
+    public Epic(Epic epic) {
+        super(epic);
+        this.subTasks = new HashSet<>();
+        for (Subtask subtask : epic.subTasks) {
+            subTasks.add(new Subtask(subtask));
+        }
+        this.endTime = epic.endTime;
+    }
+
     public Set<Subtask> getSubTasks() {
         return subTasks;
     }
@@ -67,7 +90,81 @@ public class Epic extends Task {
         if (!getSubTasks().contains(subtask)) {
             subtask.setEpicId(this.getId());
             subTasks.add(subtask);
+            index(subtask);
+            if (timeSpans != null) {
+                addTimeSpan(subtask);
+                refreshTimes();
+            } else {
+                calculateStartAndEndTimesAndDuration();
+            }
+        }
+    }
+
+    public void removeSubtask(Subtask subtask) {
+        Subtask stored = findStored(subtask);
+        if (stored == null) {
+            return;
+        }
+        subTasks.remove(stored);
+        if (storedById != null) {
+            storedById.remove(stored.getId(), stored);
+        }
+        if (timeSpans == null) {
             calculateStartAndEndTimesAndDuration();
+            return;
+        }
+        removeTimeSpan(stored);
+        refreshTimes();
+    }
+
+    /**
+     * Replaces stored version of the subtask (same id) with the given one and takes its new times into account.
+     */
+    public void updateSubtask(Subtask subtask) {
+        Subtask stored = findStored(subtask);
+        if (stored != null && stored != subtask) {
+            subTasks.remove(stored);
+        }
+        subtask.setEpicId(this.getId());
+        subTasks.add(subtask);
+        index(subtask);
+        if (timeSpans == null) {
+            calculateStartAndEndTimesAndDuration();
+            return;
+        }
+        if (stored != null) {
+            removeTimeSpan(stored);
+        }
+        addTimeSpan(subtask);
+        refreshTimes();
+    }
+
+    public void clearSubtasks() {
+        subTasks.clear();
+        storedById = null;
+        calculateStartAndEndTimesAndDuration();
+    }
+
+    private Subtask findStored(Subtask subtask) {
+        if (timeSpans != null && timeSpans.containsKey(subtask)) {
+            return subtask;
+        }
+        Integer subtaskId = subtask.getId();
+        if (subtaskId == null) {
+            return subTasks.stream().filter(stored -> stored == subtask).findFirst().orElse(null);
+        }
+        Subtask stored = storedById == null ? null : storedById.get(subtaskId);
+        if (stored == null || !subtaskId.equals(stored.getId())) {
+            storedById = new HashMap<>();
+            subTasks.forEach(this::index);
+            stored = storedById.get(subtaskId);
+        }
+        return stored;
+    }
+
+    private void index(Subtask subtask) {
+        if (storedById != null && subtask.getId() != null) {
+            storedById.put(subtask.getId(), subtask);
         }
     }
 
@@ -86,22 +183,66 @@ public class Epic extends Task {
     }
 
     private void calculateStartAndEndTimesAndDuration() {
-        List<Subtask> subtaskList = new ArrayList<>(
-                getSubTasks().stream()
-                .filter(subtask -> subtask.getStartTime() != null && subtask.getEndTime() != null)
-                .toList());
+        timeSpans = new IdentityHashMap<>();
+        startTimes = new TreeMap<>();
+        endTimes = new TreeMap<>();
+        durationSum = 0;
+        for (Subtask subtask : subTasks) {
+            addTimeSpan(subtask);
+        }
+        refreshTimes();
+    }
+
+    private void addTimeSpan(Subtask subtask) {
+        TimeSpan span = new TimeSpan(subtask.getStartTime(), subtask.getEndTime(), subtask.getDuration());
+        timeSpans.put(subtask, span);
+        if (span.start != null && span.end != null) {
+            startTimes.merge(span.start, 1, Integer::sum);
+            endTimes.merge(span.end, 1, Integer::sum);
+        }
+        if (span.duration != null) {
+            durationSum += span.duration;
+        }
+    }
 
-        subtaskList.sort(Comparator.comparing(Task::getStartTime));
+    private void removeTimeSpan(Subtask subtask) {
+        TimeSpan span = timeSpans.remove(subtask);
+        if (span == null) {
+            return;
+        }
+        if (span.start != null && span.end != null) {
+            startTimes.computeIfPresent(span.start, (time, count) -> count > 1 ? count - 1 : null);
+            endTimes.computeIfPresent(span.end, (time, count) -> count > 1 ? count - 1 : null);
+        }
+        if (span.duration != null) {
+            durationSum -= span.duration;
+        }
+    }
 
-        if (!subtaskList.isEmpty()) {
-            this.startTime = subtaskList.getFirst().getStartTime();
-            this.endTime = subtaskList.getLast().getEndTime();
+    private void refreshTimes() {
+        if (startTimes.isEmpty()) {
+            this.startTime = null;
+            this.endTime = null;
+            this.duration = null;
+        } else {
+            this.startTime = startTimes.firstKey();
+            this.endTime = endTimes.lastKey();
+            this.duration = Duration.ofMinutes(durationSum);
+        }
+    }
 
-            Long duration = 0L;
-            for (Subtask subtask: getSubTasks()) {
-                duration += subtask.getDuration();
-            }
-            this.duration = Duration.ofMinutes(duration);
+    private static class TimeSpan {
+
+        final LocalDateTime start;
+
+        final LocalDateTime end;
+
+        final Long duration;
+
+        TimeSpan(LocalDateTime start, LocalDateTime end, Long duration) {
+            this.start = start;
+            this.end = end;
+            this.duration = duration;
         }
     }
 }
@@ -41,6 +41,11 @@ public class Subtask extends Task {
         super(name, description, status);
     }
 
+    public Subtask(Subtask subtask) {
+        super(subtask);
+        this.epicId = subtask.epicId;
+    }
+
     public Integer getEpicId() {
         return epicId;
     }
@@ -0,0 +1,10 @@
+package com.kanban.utils;
+
+public enum ExecutionMode {
+
+    DISPATCHER_THREAD,
+
+    VIRTUAL_THREADS,
+
+    FIXED_THREAD_POOL
+}
@@ -0,0 +1,8 @@
+package com.kanban.utils;
+
+public enum FileFormat {
+
+    CSV,
+
+    BINARY
+}
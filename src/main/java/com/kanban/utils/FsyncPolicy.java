@@ -0,0 +1,10 @@
+package com.kanban.utils;
+
+public enum FsyncPolicy {
+
+    EVERY_WRITE,
+
+    INTERVAL_MILLIS,
+
+    RECORD_COUNT
+}
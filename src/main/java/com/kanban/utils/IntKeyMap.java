@@ -0,0 +1,325 @@
+package com.kanban.utils;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map with primitive int keys. Entries are kept in insertion order in two dense arrays of keys and values,
+ * and an open-addressing table of entry indices with linear probing finds them by key, so there is
+ * neither a boxed key nor an entry object per mapping. Removed entries leave holes, which are squeezed
+ * out when the arrays have to grow. Null values are not supported.
+ * Methods taking int keys avoid boxing, the {@link Map} ones unbox and delegate to them.
+ */
+public class IntKeyMap<V> extends AbstractMap<Integer, V> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int[] table; // entry index + 1, zero is an empty cell
+    private int end;
+    private int size;
+    private int modCount;
+
+    public IntKeyMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public IntKeyMap(int capacity) {
+        int entries = Math.max(capacity, INITIAL_CAPACITY);
+        this.keys = new int[entries];
+        this.values = new Object[entries];
+        this.table = new int[tableSizeFor(entries)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer id && containsKey(id.intValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Integer id ? get(id.intValue()) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntKeyMap doesn't support null values");
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (end == keys.length) {
+            grow();
+        }
+        keys[end] = key;
+        values[end] = value;
+        insertIntoTable(end);
+        end++;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public V put(Integer key, V value) {
+        return put(key.intValue(), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = table.length - 1;
+        int i = hash(key) & mask;
+        while (table[i] != 0 && keys[table[i] - 1] != key) {
+            i = (i + 1) & mask;
+        }
+        if (table[i] == 0) {
+            return null;
+        }
+        int index = table[i] - 1;
+        deleteCell(i);
+        V previous = (V) values[index];
+        values[index] = null;
+        size--;
+        modCount++;
+        if (index == end - 1) {
+            while (end > 0 && values[end - 1] == null) {
+                end--;
+            }
+        }
+        return previous;
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof Integer id ? remove(id.intValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, end, null);
+        Arrays.fill(table, 0);
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    Integer current(int index) {
+                        return keys[index];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V current(int index) {
+                        return (V) values[index];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new EntryIterator<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    Entry<Integer, V> current(int index) {
+                        return new SimpleEntry<>(keys[index], (V) values[index]) {
+                            @Override
+                            public V setValue(V value) {
+                                IntKeyMap.this.put(getKey().intValue(), value);
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(int key) {
+        int mask = table.length - 1;
+        for (int i = hash(key) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int index = table[i] - 1;
+            if (keys[index] == key) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIntoTable(int index) {
+        int mask = table.length - 1;
+        int i = hash(keys[index]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = index + 1;
+    }
+
+    /**
+     * Empties the cell and shifts following cells of the probe sequence back, so no tombstones are left.
+     */
+    private void deleteCell(int i) {
+        int mask = table.length - 1;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[table[j] - 1]) & mask;
+            boolean staysInPlace = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!staysInPlace) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+    }
+
+    /**
+     * Squeezes holes out if at least a quarter of entries are removed, otherwise doubles the arrays.
+     */
+    private void grow() {
+        if (size > end - end / 4) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        int live = 0;
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                keys[live] = keys[i];
+                values[live] = values[i];
+                live++;
+            }
+        }
+        Arrays.fill(values, live, end, null);
+        end = live;
+        table = new int[tableSizeFor(keys.length)];
+        for (int i = 0; i < end; i++) {
+            insertIntoTable(i);
+        }
+    }
+
+    /**
+     * Table is kept at most half full.
+     */
+    private static int tableSizeFor(int entries) {
+        return Integer.highestOneBit(entries * 2 - 1) << 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private abstract class EntryIterator<T> implements Iterator<T> {
+
+        private int next = skipHoles(0);
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        abstract T current(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = skipHoles(next + 1);
+            return current(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            IntKeyMap.this.remove(keys[last]);
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        private int skipHoles(int index) {
+            while (index < end && values[index] == null) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
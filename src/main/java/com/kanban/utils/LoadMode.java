@@ -0,0 +1,10 @@
+package com.kanban.utils;
+
+public enum LoadMode {
+
+    SEQUENTIAL,
+
+    BULK,
+
+    PARALLEL
+}
@@ -0,0 +1,8 @@
+package com.kanban.utils;
+
+public enum StorageMode {
+
+    SNAPSHOT,
+
+    JOURNAL
+}
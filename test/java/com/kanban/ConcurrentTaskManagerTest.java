@@ -0,0 +1,169 @@
+package com.kanban;
+
+import com.kanban.controllers.AsyncHistoryManager;
+import com.kanban.controllers.ConcurrentTaskManager;
+import com.kanban.controllers.HistoryManager;
+import com.kanban.controllers.InMemoryTaskManager;
+import com.kanban.controllers.Managers;
+import com.kanban.controllers.ShardedHistoryManager;
+import com.kanban.controllers.TaskManager;
+import com.kanban.tasks.Epic;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.kanban.utils.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    public void setup() {
+        super.setup();
+        historyManager = Managers.getDefaultHistory();
+        taskManager = new ConcurrentTaskManager(new InMemoryTaskManager(historyManager));
+    }
+
+    @Test
+    void testParallelCreationAndReading() throws Exception {
+        int threads = 8;
+        int tasksPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < tasksPerThread; j++) {
+                        int id = taskManager.createTask(new Task("Task", "Description", TaskStatus.NEW));
+                        taskManager.getTaskById(id);
+                        taskManager.getAllTasks();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Task> tasks = taskManager.getAllTasks();
+        Set<Integer> ids = new HashSet<>();
+        tasks.forEach(task -> ids.add(task.getId()));
+
+        assertEquals(threads * tasksPerThread, tasks.size());
+        assertEquals(threads * tasksPerThread, ids.size());
+        assertEquals(threads * tasksPerThread, taskManager.getHistory().size());
+    }
+
+    @Test
+    void testAsyncHistoryAppliesCoalescedChanges() throws Exception {
+        int threads = 8;
+        int readsPerThread = 2000;
+        try (AsyncHistoryManager asyncHistory = Managers.getAsyncHistory(Managers.getDefaultHistory())) {
+            TaskManager manager = new ConcurrentTaskManager(new InMemoryTaskManager(asyncHistory));
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                ids.add(manager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW)));
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(() -> {
+                        for (int j = 0; j < readsPerThread; j++) {
+                            manager.getTaskById(ids.get(j % ids.size()));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            assertEquals(ids.size(), manager.getHistory().size());
+
+            manager.getTaskById(ids.getFirst());
+            manager.removeTaskById(ids.get(1));
+            List<Task> history = manager.getHistory();
+            assertEquals(ids.size() - 1, history.size());
+            assertEquals(ids.getFirst(), history.getLast().getId());
+        }
+    }
+
+    @Test
+    void testAsyncHistoryConsumerSleepsWhenIdle() throws Exception {
+        HistoryManager delegate = Managers.getDefaultHistory();
+        try (AsyncHistoryManager asyncHistory = Managers.getAsyncHistory(delegate)) {
+            asyncHistory.add(new Task("Task", "Description", TaskStatus.NEW, 1));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (delegate.getHistory().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, delegate.getHistory().size());
+
+            Thread consumer = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("task-history-consumer"))
+                    .findFirst()
+                    .orElseThrow();
+            while (consumer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(Thread.State.WAITING, consumer.getState());
+        }
+    }
+
+    @Test
+    void testAsyncHistoryRejectsPerUserHistory() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Managers.getAsyncHistory(Managers.getShardedHistory(10, 0)));
+    }
+
+    @Test
+    void testReturnedEpicIsCopy() {
+        int epicId = taskManager.createTask(new Epic("Epic", "Description", TaskStatus.NEW));
+        Epic epic = taskManager.getEpicById(epicId);
+        taskManager.createTask(new Subtask("Subtask", "Description", TaskStatus.DONE, epicId));
+
+        assertTrue(epic.getSubTasks().isEmpty());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        Epic stored = taskManager.getEpicById(epicId);
+        assertEquals(1, stored.getSubTasks().size());
+        assertEquals(TaskStatus.DONE, stored.getStatus());
+    }
+
+    @Test
+    void testShardedHistoryUnindexesEvictedTasks() {
+        ShardedHistoryManager history = new ShardedHistoryManager(2, 0);
+        TaskManager manager = new ConcurrentTaskManager(new InMemoryTaskManager(history));
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(manager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW)));
+        }
+        try {
+            ShardedHistoryManager.setCurrentUser("alice");
+            ids.forEach(manager::getTaskById);
+            assertEquals(2, history.getIndexedTaskCount());
+
+            ShardedHistoryManager.setCurrentUser("bob");
+            manager.getTaskById(ids.getFirst());
+            assertEquals(3, history.getIndexedTaskCount());
+        } finally {
+            ShardedHistoryManager.clearCurrentUser();
+        }
+    }
+}
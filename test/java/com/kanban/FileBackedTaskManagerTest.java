@@ -1,14 +1,25 @@
 package com.kanban;
 
 import com.kanban.controllers.FileBackedTaskManager;
+import com.kanban.controllers.JournalWriter;
 import com.kanban.controllers.Managers;
+import com.kanban.controllers.ParallelTaskLoader;
+import com.kanban.controllers.PersistentHistoryManager;
+import com.kanban.controllers.TaskLineParser;
 import com.kanban.controllers.TaskManager;
+import com.kanban.exception.ManagerSaveException;
+import com.kanban.exception.PriorityTaskException;
 import com.kanban.exception.WrongFileFormatException;
 import com.kanban.tasks.Epic;
 import com.kanban.tasks.Subtask;
 import com.kanban.tasks.Task;
+import com.kanban.utils.FileFormat;
+import com.kanban.utils.FsyncPolicy;
+import com.kanban.utils.LoadMode;
+import com.kanban.utils.StorageMode;
 import com.kanban.utils.TaskStatus;
 import com.kanban.utils.TaskType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -19,8 +30,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -47,6 +64,11 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         taskManager = new FileBackedTaskManager(historyManager, tasksFileName);
     }
 
+    @AfterEach
+    public void closeManager() {
+        taskManager.close();
+    }
+
     @Test
     void testFileCreation() {
         int taskId = taskManager.createTask(task1);
@@ -129,6 +151,38 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(3, subtask.getEpicId());
     }
 
+    @Test
+    void lineParserReadsLinesInPlace() {
+        String content = FileBackedTaskManager.HEADER + "\r\n"
+                + "1,TASK,Task name,NEW,Task description,,2024-07-01T12:30,45\r\n"
+                + " 2, SUBTASK, Subtask name , DONE , Subtask description, 3 , 2024-07-01T14:00:15 , \n"
+                + "3,EPIC,Epic name,IN_PROGRESS,Epic description,,2024-07-01T15:00:00.5,\n";
+        TaskLineParser parser = new TaskLineParser(content);
+
+        assertTrue(parser.nextLine());
+        assertTrue(parser.lineEquals(FileBackedTaskManager.HEADER));
+
+        assertTrue(parser.nextLine());
+        Task task = parser.parse();
+        assertEquals(LocalDateTime.of(2024, 7, 1, 12, 30), task.getStartTime());
+        assertEquals(45L, task.getDuration());
+        assertEquals("Task description", task.getDescription());
+
+        assertTrue(parser.nextLine());
+        Subtask subtask = (Subtask) parser.parse();
+        assertEquals(TaskType.SUBTASK, subtask.getType());
+        assertEquals(3, subtask.getEpicId());
+        assertEquals(TaskStatus.DONE, subtask.getStatus());
+        assertEquals(LocalDateTime.of(2024, 7, 1, 14, 0, 15), subtask.getStartTime());
+        assertNull(subtask.getDuration());
+
+        assertTrue(parser.nextLine());
+        Task epic = parser.parse();
+        assertEquals(TaskType.EPIC, epic.getType());
+        assertEquals("Epic name", epic.getName());
+        assertFalse(parser.nextLine());
+    }
+
     @Test
     void wrongTaskFromStringTransformation() {
         String taskLine1 = " 1, TASK, Task name , NEW  ,   ";
@@ -166,6 +220,20 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Files.delete(file);
     }
 
+    @Test
+    void csvSnapshotKeepsTimes() {
+        Path file = tempDir.resolve("times.csv");
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 12, 30);
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file);
+        manager1.createTask(new Task("Task", "Description", TaskStatus.NEW, null, start, 45L));
+
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(historyManager, file);
+        Task loaded = manager2.getAllTasks().getFirst();
+        assertEquals(start, loaded.getStartTime());
+        assertEquals(45L, loaded.getDuration());
+        assertEquals(List.of(loaded), manager2.getPrioritizedTasks());
+    }
+
     @Test
     void idempotenceEqualManager() throws IOException {
         Path file = tempDir.resolve("someFile.csv");
@@ -231,4 +299,490 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(manager1.getAllTasks(), manager2.getAllTasks());
         assertEquals(manager1.getAllSubtasks(), manager2.getAllSubtasks());
     }
-}
\ No newline at end of file
+
+    @Test
+    void journalRestoresStateWithIds() throws IOException {
+        Path file = tempDir.resolve("journal.csv");
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        task1.setStartTime(LocalDateTime.of(2024, 7, 1, 12, 0));
+        task1.setDuration(30L);
+        int taskId = manager1.createTask(task1);
+        int removedTaskId = manager1.createTask(task2);
+        int epicId = manager1.createTask(epic1);
+        subtask1.setEpicId(epicId);
+        subtask1.setStatus(TaskStatus.DONE);
+        int subtaskId = manager1.createTask(subtask1);
+
+        task1.setName("Updated name");
+        manager1.updateTask(task1);
+        manager1.removeTaskById(removedTaskId);
+
+        assertTrue(Files.isRegularFile(file.resolveSibling("journal.csv" + FileBackedTaskManager.JOURNAL_SUFFIX)));
+        assertEquals(6, Files.readAllLines(file.resolveSibling("journal.csv" + FileBackedTaskManager.JOURNAL_SUFFIX)).size());
+
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        assertEquals(manager1.getAllTasks(), manager2.getAllTasks());
+        assertEquals(manager1.getAllSubtasks(), manager2.getAllSubtasks());
+        assertEquals(manager1.getAllEpics(), manager2.getAllEpics());
+        assertEquals("Updated name", manager2.getTaskById(taskId).getName());
+        assertEquals(LocalDateTime.of(2024, 7, 1, 12, 0), manager2.getTaskById(taskId).getStartTime());
+        assertEquals(30L, manager2.getTaskById(taskId).getDuration());
+        assertEquals(TaskStatus.DONE, manager2.getEpicById(epicId).getStatus());
+        assertTrue(manager2.getEpicById(epicId).getSubTasks().contains(manager2.getSubtaskById(subtaskId)));
+        assertEquals(List.of(manager2.getTaskById(taskId)), manager2.getPrioritizedTasks());
+
+        int newTaskId = manager2.createTask(new Task("Task 3", "Description", TaskStatus.NEW));
+        assertTrue(newTaskId > subtaskId);
+    }
+
+    @Test
+    void batchIsPersistedAtOnce() throws IOException {
+        Path file = tempDir.resolve("batch.csv");
+        Path journal = file.resolveSibling("batch.csv" + FileBackedTaskManager.JOURNAL_SUFFIX);
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new Task("Task " + i, "Description", TaskStatus.NEW));
+        }
+        manager1.createAll(batch);
+        manager1.removeAll(List.of(batch.get(0).getId(), batch.get(1).getId()));
+
+        assertEquals(102, Files.readAllLines(journal).size());
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+        assertEquals(98, manager2.getAllTasks().size());
+
+        Path snapshotFile = tempDir.resolve("batchSnapshot.csv");
+        FileBackedTaskManager snapshotManager = new FileBackedTaskManager(historyManager, snapshotFile);
+        snapshotManager.createAll(batch.subList(0, 10).stream()
+                .map(task -> new Task(task.getName(), task.getDescription(), task.getStatus()))
+                .toList());
+        assertEquals(11, Files.readAllLines(snapshotFile).size());
+    }
+
+    @Test
+    void rejectedBatchIsNotPersisted() {
+        Path file = tempDir.resolve("rejected.csv");
+        FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file);
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 12, 0);
+        List<Task> batch = List.of(
+                new Task("Task 1", "Description", TaskStatus.NEW, null, start, 60L),
+                new Task("Task 2", "Description", TaskStatus.NEW, null, start.plusMinutes(30), 60L));
+
+        assertThrows(PriorityTaskException.class, () -> manager.createAll(batch));
+        assertTrue(Files.notExists(file));
+    }
+
+    @Test
+    void bulkLoadKeepsIdsAndWritesNothing() throws IOException {
+        Path file = tempDir.resolve("bulk.csv");
+        StringBuilder content = new StringBuilder(FileBackedTaskManager.HEADER);
+        for (int i = 1; i <= 1000; i++) {
+            content.append("\n").append(i).append(",TASK,Task ").append(i).append(",NEW,Description,,")
+                    .append(LocalDateTime.of(2024, 7, 1, 0, 0).plusHours(i)).append(",30");
+        }
+        content.append("\n1001,SUBTASK,Subtask,DONE,Description,1003,2024-07-01T01:10,10");
+        content.append("\n1002,SUBTASK,Subtask,NEW,Description,1003,,");
+        content.append("\n1003,EPIC,Epic,NEW,Description,,,");
+        Files.writeString(file, content);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.SNAPSHOT,
+                LoadMode.BULK);
+
+        assertEquals(1000, manager.getAllTasks().size());
+        assertNull(manager.getAllSubtasks().stream().filter(task -> task.getId() == 1001).findFirst().orElse(null));
+        assertEquals(List.of(manager.getSubtaskById(1002)), manager.getEpicSubtasks(1003));
+        assertEquals(TaskStatus.NEW, manager.getEpicById(1003).getStatus());
+        assertEquals(1000, manager.getPrioritizedTasks().size());
+        assertTrue(manager.getLoadDuration() != null);
+        assertEquals(content.toString(), Files.readString(file));
+        assertEquals(modified, Files.getLastModifiedTime(file).toMillis());
+        assertEquals(1004, manager.createTask(new Task("Task", "Description", TaskStatus.NEW)));
+    }
+
+    @Test
+    void parallelLoadMatchesBulkLoad() throws IOException {
+        Path file = tempDir.resolve("parallel.csv");
+        StringBuilder content = new StringBuilder(FileBackedTaskManager.HEADER);
+        for (int i = 1; i <= 3000; i++) {
+            content.append("\n").append(i).append(",TASK,Задача ").append(i).append(",NEW,Description,,")
+                    .append(LocalDateTime.of(2024, 7, 1, 0, 0).plusHours(i)).append(",30");
+        }
+        content.append("\n3001,EPIC,Epic,NEW,Description,,,");
+        content.append("\nbroken line");
+        for (int i = 3002; i <= 4000; i++) {
+            content.append("\n").append(i).append(",SUBTASK,Subtask ").append(i).append(",DONE,Description,3001,,");
+        }
+        Files.writeString(file, content);
+
+        List<Task> loaded = new ParallelTaskLoader(file, 1024).load();
+        assertEquals(4000, loaded.size());
+        assertEquals("Задача 1", loaded.getFirst().getName());
+        assertEquals(4000, loaded.getLast().getId());
+
+        FileBackedTaskManager bulk = new FileBackedTaskManager(historyManager, file, StorageMode.SNAPSHOT,
+                LoadMode.BULK);
+        FileBackedTaskManager parallel = new FileBackedTaskManager(historyManager, file, StorageMode.SNAPSHOT,
+                LoadMode.PARALLEL);
+        assertEquals(bulk.getAllTasks(), parallel.getAllTasks());
+        assertEquals(bulk.getAllSubtasks(), parallel.getAllSubtasks());
+        assertEquals(bulk.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+        assertEquals(TaskStatus.DONE, parallel.getEpicById(3001).getStatus());
+        assertEquals(999, parallel.getEpicSubtasks(3001).size());
+    }
+
+    @Test
+    void binaryFormatKeepsTimesAndIds() throws IOException {
+        Path file = tempDir.resolve("tasks.bin");
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file);
+        manager1.setFileFormat(FileFormat.BINARY);
+
+        task1.setStartTime(LocalDateTime.of(2024, 7, 1, 12, 0));
+        task1.setDuration(30L);
+        task2.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 59, 30, 500));
+        int taskId = manager1.createTask(task1);
+        manager1.createTask(task2);
+        int epicId = manager1.createTask(epic1);
+        Subtask subtask = new Subtask("Подзадача", "Description", TaskStatus.IN_PROGRESS, null, epicId,
+                LocalDateTime.of(2024, 7, 2, 9, 15), 45L);
+        int subtaskId = manager1.createTask(subtask);
+        manager1.removeTaskById(taskId);
+        int noDescriptionId = manager1.createTask(new Task("Task 3", null, TaskStatus.DONE));
+
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(historyManager, file);
+
+        assertEquals(FileFormat.BINARY, manager2.getFileFormat());
+        assertEquals(manager1.getAllTasks(), manager2.getAllTasks());
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 30, 500), manager2.getTaskById(task2.getId()).getStartTime());
+        assertNull(manager2.getTaskById(noDescriptionId).getDescription());
+        Subtask restored = manager2.getSubtaskById(subtaskId);
+        assertEquals("Подзадача", restored.getName());
+        assertEquals(epicId, restored.getEpicId());
+        assertEquals(LocalDateTime.of(2024, 7, 2, 9, 15), restored.getStartTime());
+        assertEquals(45L, restored.getDuration());
+        assertEquals(TaskStatus.IN_PROGRESS, manager2.getEpicById(epicId).getStatus());
+    }
+
+    @Test
+    void convertBetweenCsvAndBinary() throws IOException {
+        Path csv = tempDir.resolve("source.csv");
+        StringBuilder content = new StringBuilder(FileBackedTaskManager.HEADER);
+        for (int i = 1; i <= 100; i++) {
+            content.append("\n").append(i).append(",TASK,Task ").append(i).append(",NEW,Description,,")
+                    .append(LocalDateTime.of(2024, 7, 1, 0, 0).plusHours(i)).append(",30");
+        }
+        Files.writeString(csv, content);
+        Path binary = tempDir.resolve("converted.bin");
+        Path csvAgain = tempDir.resolve("converted.csv");
+
+        FileBackedTaskManager.convert(csv, binary, FileFormat.BINARY);
+        FileBackedTaskManager.convert(binary, csvAgain, FileFormat.CSV);
+
+        assertTrue(Files.size(binary) < Files.size(csv));
+        assertEquals(content.toString(), Files.readString(csvAgain));
+
+        byte[] bytes = Files.readAllBytes(binary);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(binary, bytes);
+        FileBackedTaskManager damaged = new FileBackedTaskManager(historyManager, binary);
+        assertEquals(99, damaged.getAllTasks().size());
+    }
+
+    @Test
+    void binarySnapshotAppendsOnlyChangedTasks() throws IOException {
+        Path file = tempDir.resolve("tasks.bin");
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file);
+        manager1.setFileFormat(FileFormat.BINARY);
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(new Task("Task " + i, "Description " + i, TaskStatus.NEW));
+        }
+        List<Integer> ids = manager1.createAll(batch);
+        int epicId = manager1.createTask(new Epic("Epic", "Description", TaskStatus.NEW));
+        int subtaskId = manager1.createTask(new Subtask("Subtask", "Description", TaskStatus.NEW, null, epicId));
+        long fullSize = Files.size(file);
+
+        Task updated = new Task("Renamed", "Description 0", TaskStatus.DONE, ids.getFirst());
+        manager1.updateTask(updated);
+        long appended = Files.size(file) - fullSize;
+        assertTrue(appended > 0 && appended < fullSize / 50);
+
+        manager1.removeTaskById(ids.get(1));
+        manager1.updateTask(new Subtask("Subtask", "Description", TaskStatus.DONE, subtaskId, epicId));
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(historyManager, file);
+        assertEquals(manager1.getAllTasks(), manager2.getAllTasks());
+        assertEquals("Renamed", manager2.getTaskById(ids.getFirst()).getName());
+        assertEquals(199, manager2.getAllTasks().size());
+        assertEquals(TaskStatus.DONE, manager2.getEpicById(epicId).getStatus());
+
+        manager1.removeEpicById(epicId);
+        manager1.cleanTasks();
+        FileBackedTaskManager manager3 = new FileBackedTaskManager(historyManager, file);
+        assertEquals(0, manager3.getAllTasks().size());
+        assertEquals(0, manager3.getAllSubtasks().size());
+        assertEquals(0, manager3.getAllEpics().size());
+    }
+
+    @Test
+    void viewHistoryIsRestoredAfterRestart() {
+        Path file = tempDir.resolve("history.csv");
+        try (FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file)) {
+            int taskId = manager1.createTask(task1);
+            int removedId = manager1.createTask(task2);
+            int epicId = manager1.createTask(epic1);
+            int subtaskId = manager1.createTask(new Subtask("Subtask", "Description", TaskStatus.NEW, null, epicId));
+
+            manager1.getTaskById(taskId);
+            manager1.getEpicById(epicId);
+            manager1.getTaskById(removedId);
+            manager1.getSubtaskById(subtaskId);
+            manager1.getTaskById(taskId);
+            manager1.removeTaskById(removedId);
+        }
+
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(Managers.getDefaultHistory(), file);
+
+        assertEquals(List.of(epic1.getName(), "Subtask", task1.getName()),
+                manager2.getHistory().stream().map(Task::getName).toList());
+        assertTrue(Files.exists(tempDir.resolve("history.csv" + FileBackedTaskManager.HISTORY_SUFFIX)));
+    }
+
+    @Test
+    void journalReplaysRemovalsAndCleaning() {
+        Path file = tempDir.resolve("journal.csv");
+        FileBackedTaskManager manager1 = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        manager1.createTask(task1);
+        epic1.addSubtask(subtask1);
+        int epicId = manager1.createTask(epic1);
+        manager1.createTask(epic2);
+        manager1.cleanTasks();
+        manager1.removeEpicById(epicId);
+
+        FileBackedTaskManager manager2 = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        assertEquals(0, manager2.getAllTasks().size());
+        assertEquals(0, manager2.getAllSubtasks().size());
+        assertEquals(List.of(epic2), manager2.getAllEpics());
+    }
+
+    @Test
+    void journalIsCompactedIntoSnapshot() throws IOException {
+        Path file = tempDir.resolve("compacted.csv");
+        Path journal = file.resolveSibling("compacted.csv" + FileBackedTaskManager.JOURNAL_SUFFIX);
+        Path compactedJournal = file.resolveSibling("compacted.csv" + FileBackedTaskManager.COMPACTED_JOURNAL_SUFFIX);
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            manager.setCompactionThresholds(10, FileBackedTaskManager.DEFAULT_COMPACTION_BYTES);
+            for (int i = 0; i < 25; i++) {
+                int id = manager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW));
+                if (i % 2 == 0) {
+                    manager.removeTaskById(id);
+                }
+            }
+        }
+
+        assertTrue(Files.readAllLines(file).size() > 1);
+        assertTrue(Files.notExists(compactedJournal));
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+        assertEquals(12, restored.getAllTasks().size());
+        assertTrue(restored.getAllTasks().stream().allMatch(task -> task.getId() % 2 == 0));
+    }
+
+    @Test
+    void compactionTruncatesJournalToLaterRecords() throws IOException {
+        Path file = tempDir.resolve("truncated.csv");
+        Path journal = file.resolveSibling("truncated.csv" + FileBackedTaskManager.JOURNAL_SUFFIX);
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            for (int i = 0; i < 25; i++) {
+                int id = manager.createTask(new Task("Задача " + i, "Description", TaskStatus.NEW));
+                if (i % 2 == 0) {
+                    manager.removeTaskById(id);
+                }
+            }
+            manager.compact();
+            manager.createTask(new Task("Task after compaction", "Description", TaskStatus.NEW));
+        }
+
+        assertEquals(13, Files.readAllLines(file).size()); // header and 12 tasks left at compaction
+        assertEquals(1, Files.readAllLines(journal).size());
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+        assertEquals(13, restored.getAllTasks().size());
+    }
+
+    @Test
+    void perUserHistoryIsNotPersisted() {
+        Path file = tempDir.resolve("sharded.csv");
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileBackedTaskManager(Managers.getShardedHistory(10, 0), file));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PersistentHistoryManager(Managers.getShardedHistory(10, 0), file));
+    }
+
+    @Test
+    void compactionSnapshotKeepsEpicAtCompaction() throws IOException {
+        Path file = tempDir.resolve("epic-snapshot.csv");
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            int epicId = manager.createTask(new Epic("Epic", "Description", TaskStatus.NEW));
+            int subtaskId = manager.createTask(new Subtask("Subtask", "Description", TaskStatus.NEW, epicId));
+            manager.compact();
+            manager.updateTask(new Subtask("Subtask", "Description", TaskStatus.DONE, subtaskId, epicId));
+        }
+
+        assertTrue(Files.readAllLines(file).stream()
+                .anyMatch(line -> line.startsWith("1,EPIC,Epic,NEW,")));
+    }
+
+    @Test
+    void rotationAppendsToUnfinishedRotatedJournal() throws IOException {
+        Path journal = tempDir.resolve("rotated.journal");
+        Path rotated = tempDir.resolve("rotated.journal.old");
+        Files.writeString(rotated, "PUT,old\n");
+
+        JournalWriter writer = new JournalWriter(journal, FsyncPolicy.EVERY_WRITE, 0);
+        try {
+            writer.append(List.of("PUT,new")).join();
+            writer.rotate(rotated).join();
+        } finally {
+            writer.close();
+        }
+
+        assertEquals(List.of("PUT,old", "PUT,new"), Files.readAllLines(rotated));
+        assertTrue(Files.notExists(journal));
+    }
+
+    @Test
+    void intersectingJournalRecordKeepsPreviousVersion() throws IOException {
+        Path file = tempDir.resolve("intersecting.csv");
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 12, 0);
+        Task first = new Task("Task 1", "Description", TaskStatus.NEW, 1, start, 30L);
+        Task second = new Task("Task 2", "Description", TaskStatus.NEW, 2, start.plusHours(1), 30L);
+        Task moved = new Task("Task 1", "Description", TaskStatus.NEW, 1, start.plusMinutes(70), 30L);
+        Files.writeString(file.resolveSibling("intersecting.csv" + FileBackedTaskManager.JOURNAL_SUFFIX),
+                "PUT," + FileBackedTaskManager.toFullString(first) + "\n"
+                        + "PUT," + FileBackedTaskManager.toFullString(second) + "\n"
+                        + "PUT," + FileBackedTaskManager.toFullString(moved) + "\n");
+
+        FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        assertEquals(start, manager.getTaskById(1).getStartTime());
+        assertEquals(List.of(1, 2), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertThrows(PriorityTaskException.class, () -> manager.createTask(
+                new Task("Task 3", "Description", TaskStatus.NEW, null, start.plusMinutes(10), 10L)));
+        manager.close();
+    }
+
+    @Test
+    void interruptedCompactionIsFinishedOnLoad() throws IOException {
+        Path file = tempDir.resolve("interrupted.csv");
+        Path journal = file.resolveSibling("interrupted.csv" + FileBackedTaskManager.JOURNAL_SUFFIX);
+        Path compactedJournal = file.resolveSibling("interrupted.csv" + FileBackedTaskManager.COMPACTED_JOURNAL_SUFFIX);
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            manager.createTask(task1);
+        }
+        Files.move(journal, compactedJournal);
+        task2.setId(2);
+        Files.writeString(journal, "PUT," + FileBackedTaskManager.toFullString(task2) + "\n");
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+
+        assertEquals(2, restored.getAllTasks().size());
+        assertTrue(Files.isRegularFile(file));
+        assertTrue(Files.notExists(compactedJournal));
+        assertTrue(Files.notExists(journal));
+    }
+
+    @Test
+    void journalWithDelayedSyncKeepsAllRecords() {
+        Path file = tempDir.resolve("delayed.csv");
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            manager.setDurability(FsyncPolicy.INTERVAL_MILLIS, 50, false);
+            for (int i = 0; i < 100; i++) {
+                manager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW));
+            }
+        }
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+        assertEquals(100, restored.getAllTasks().size());
+    }
+
+    @Test
+    void concurrentWritersAwaitDurabilityOutsideLock() throws Exception {
+        Path file = tempDir.resolve("concurrent.csv");
+        int threads = 8;
+        int tasksPerThread = 50;
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            TaskManager concurrentManager = Managers.getConcurrent(manager);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(() -> {
+                        for (int j = 0; j < tasksPerThread; j++) {
+                            concurrentManager.createTask(new Task("Task", "Description", TaskStatus.NEW));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        FileBackedTaskManager restored = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL);
+        assertEquals(threads * tasksPerThread, restored.getAllTasks().size());
+    }
+
+    @Test
+    void journalFailureWithoutWaitingIsThrownByNextMutation() throws Exception {
+        Path file = tempDir.resolve("failing.csv");
+        Files.createDirectory(file.resolveSibling("failing.csv" + FileBackedTaskManager.JOURNAL_SUFFIX));
+
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, file, StorageMode.JOURNAL)) {
+            manager.setDurability(FsyncPolicy.EVERY_WRITE, 0, false);
+            manager.createTask(new Task("Task", "Description", TaskStatus.NEW));
+            assertThrows(ManagerSaveException.class, () -> {
+                for (int i = 0; i < 100; i++) {
+                    Thread.sleep(20);
+                    manager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW));
+                }
+            });
+        }
+    }
+
+    @Test
+    void viewHistoryIsCompactedOnWriterThread() throws IOException {
+        Path file = tempDir.resolve("views.history");
+        List<Task> viewed = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            viewed.add(new Task("Task " + id, "Description", TaskStatus.NEW, id));
+        }
+
+        try (PersistentHistoryManager history = new PersistentHistoryManager(Managers.getDefaultHistory(), file)) {
+            history.restore(id -> null);
+            history.setCompactionRecords(10);
+            for (int i = 0; i < 99; i++) {
+                history.add(viewed.get(i % viewed.size()));
+            }
+        }
+
+        assertTrue(Files.readAllLines(file).size() <= 12); // 99 views were recorded
+        assertTrue(Files.notExists(file.resolveSibling("views.history" + PersistentHistoryManager.COMPACTED_SUFFIX)));
+        try (PersistentHistoryManager restored = new PersistentHistoryManager(Managers.getDefaultHistory(), file)) {
+            restored.restore(id -> viewed.get(id - 1));
+            assertEquals(viewed, restored.getHistory());
+        }
+    }
+}
@@ -1,8 +1,23 @@
 package com.kanban;
 
+import com.kanban.controllers.HistoryManager;
 import com.kanban.controllers.InMemoryTaskManager;
 import com.kanban.controllers.Managers;
+import com.kanban.tasks.Subtask;
+import com.kanban.tasks.Task;
+import com.kanban.utils.IntKeyMap;
+import com.kanban.utils.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
 
@@ -12,4 +27,90 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         historyManager = Managers.getDefaultHistory();
         taskManager = new InMemoryTaskManager(historyManager);
     }
+
+    @Test
+    void testEpicStatusCountersFollowSubtaskTransitions() {
+        int epicId = taskManager.createTask(epic1);
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Subtask subtask = new Subtask("Subtask " + i, "Description", TaskStatus.NEW, epicId);
+            taskManager.createTask(subtask);
+            subtasks.add(subtask);
+        }
+        assertEquals(TaskStatus.NEW, taskManager.getEpicById(epicId).getStatus());
+
+        for (Subtask subtask : subtasks) {
+            subtask.setStatus(TaskStatus.DONE);
+            taskManager.updateTask(subtask);
+            if (subtask != subtasks.getLast()) {
+                assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpicById(epicId).getStatus());
+            }
+        }
+        assertEquals(TaskStatus.DONE, taskManager.getEpicById(epicId).getStatus());
+
+        Subtask newSubtask = new Subtask("New subtask", "Description", TaskStatus.NEW, epicId);
+        taskManager.createTask(newSubtask);
+        assertEquals(TaskStatus.IN_PROGRESS, taskManager.getEpicById(epicId).getStatus());
+
+        taskManager.removeSubtaskById(newSubtask.getId());
+        assertEquals(TaskStatus.DONE, taskManager.getEpicById(epicId).getStatus());
+        assertTrue(taskManager.findInconsistentEpics().isEmpty());
+    }
+
+    @Test
+    void testArrayHistoryMatchesLinkedHistory() {
+        for (int capacity : new int[]{0, 7}) {
+            HistoryManager expected = Managers.getDefaultHistory(capacity);
+            HistoryManager actual = Managers.getArrayHistory(capacity);
+            List<Task> tasks = new ArrayList<>();
+            for (int id = 0; id < 50; id++) {
+                tasks.add(new Task("Task " + id, "Description", TaskStatus.NEW, id));
+            }
+            Random random = new Random(42);
+            for (int i = 0; i < 5000; i++) {
+                Task task = tasks.get(random.nextInt(tasks.size()));
+                if (random.nextInt(4) == 0) {
+                    expected.remove(task.getId());
+                    actual.remove(task.getId());
+                } else {
+                    expected.add(task);
+                    actual.add(task);
+                }
+                assertEquals(expected.getHistory(), actual.getHistory());
+            }
+            assertEquals(expected.getHistory(3), actual.getHistory(3));
+        }
+    }
+
+    @Test
+    void testIntKeyMapMatchesLinkedHashMap() {
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        IntKeyMap<String> actual = new IntKeyMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2000) - 100;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.remove(key), actual.remove(key));
+                case 1 -> assertEquals(expected.get(key), actual.get(key));
+                default -> assertEquals(expected.put(key, "value " + i), actual.put(key, "value " + i));
+            }
+        }
+        assertEquals(expected, actual);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+
+        actual.values().removeIf(value -> value.endsWith("0"));
+        expected.values().removeIf(value -> value.endsWith("0"));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+    }
+
+    @Test
+    void testInconsistentEpicIsFound() {
+        int epicId = taskManager.createTask(epic1);
+        subtask1.setEpicId(epicId);
+        taskManager.createTask(subtask1);
+
+        subtask1.setStatus(TaskStatus.DONE); // changed without updateTask
+
+        assertEquals(List.of(epicId), taskManager.findInconsistentEpics());
+    }
 }
@@ -8,7 +8,9 @@ import com.kanban.exception.TaskNotFoundException;
 import com.kanban.tasks.Epic;
 import com.kanban.tasks.Subtask;
 import com.kanban.tasks.Task;
+import com.kanban.tasks.TimeSlot;
 import com.kanban.utils.TaskStatus;
+import com.kanban.utils.TaskType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -19,6 +21,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -309,6 +312,39 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(1, historyManager.getHistory().size());
     }
 
+    @Test
+    void testRecentHistoryLimit() {
+        int taskId1 = taskManager.createTask(task1);
+        int taskId2 = taskManager.createTask(task2);
+        int epicId = taskManager.createTask(epic1);
+
+        taskManager.getTaskById(taskId1);
+        taskManager.getTaskById(taskId2);
+        taskManager.getEpicById(epicId);
+        taskManager.getTaskById(taskId1);
+
+        assertEquals(List.of(epic1, task1), taskManager.getHistory(2));
+        assertEquals(List.of(task2, epic1, task1), taskManager.getHistory(0));
+        assertEquals(List.of(task2, epic1, task1), taskManager.getHistory(10));
+    }
+
+    @Test
+    void testBoundedHistoryEvictsLeastRecent() {
+        task1.setId(1);
+        task2.setId(2);
+        epic1.setId(3);
+        HistoryManager boundedHistory = Managers.getDefaultHistory(2);
+        boundedHistory.add(task1);
+        boundedHistory.add(task2);
+        boundedHistory.add(task1);
+        boundedHistory.add(epic1);
+
+        assertEquals(List.of(task1, epic1), boundedHistory.getHistory());
+        boundedHistory.remove(epic1.getId());
+        boundedHistory.add(task2);
+        assertEquals(List.of(task1, task2), boundedHistory.getHistory());
+    }
+
     @Test
     void testCleanFunction() throws TaskNotFoundException {
         int taskId = taskManager.createTask(task1);
@@ -393,4 +429,188 @@ abstract class TaskManagerTest<T extends TaskManager> {
         taskManager.createTask(task1);
         assertThrows(PriorityTaskException.class, () -> taskManager.createTask(task2));
     }
+
+    @Test
+    void testUpdateTaskDoesNotIntersectWithItself() {
+        task1.setStartTime(LocalDateTime.of(2024, 7, 1, 12, 0, 0, 0));
+        task1.setDuration(20L);
+        int taskId = taskManager.createTask(task1);
+
+        Task updatedTask = new Task("Task 1", "Moved task", TaskStatus.IN_PROGRESS, taskId,
+                LocalDateTime.of(2024, 7, 1, 12, 10, 0, 0), 20L);
+        taskManager.updateTask(updatedTask);
+
+        assertEquals(1, taskManager.getPrioritizedTasks().size());
+        assertEquals(updatedTask.getStartTime(), taskManager.getPrioritizedTasks().getFirst().getStartTime());
+    }
+
+    @Test
+    void testRemovedTaskReleasesItsTime() {
+        task1.setStartTime(LocalDateTime.of(2024, 7, 1, 12, 0, 0, 0));
+        task1.setDuration(20L);
+        task2.setStartTime(LocalDateTime.of(2024, 7, 1, 12, 5, 0, 0));
+        task2.setDuration(5L);
+
+        int taskId = taskManager.createTask(task1);
+        assertThrows(PriorityTaskException.class, () -> taskManager.createTask(task2));
+
+        taskManager.removeTaskById(taskId);
+        taskManager.createTask(task2);
+        assertEquals(List.of(task2), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    void testManyScheduledTasksIntersection() {
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 0, 0, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            taskManager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW, null,
+                    start.plusMinutes(i * 10L), 5L));
+        }
+
+        Task touching = new Task("Touching", "Description", TaskStatus.NEW, null, start.plusMinutes(5005), 5L);
+        Task inGap = new Task("In gap", "Description", TaskStatus.NEW, null, start.plusMinutes(5006), 3L);
+
+        assertThrows(PriorityTaskException.class, () -> taskManager.createTask(touching));
+        taskManager.createTask(inGap);
+        assertEquals(1001, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void testEpicTimesAfterSubtaskUpdateAndRemoval() {
+        int epicId = taskManager.createTask(epic1);
+
+        subtask1.setEpicId(epicId);
+        subtask1.setStartTime(LocalDateTime.of(2024, 7, 1, 12, 0, 0, 0));
+        subtask1.setDuration(10L);
+
+        subtask2.setEpicId(epicId);
+        subtask2.setStartTime(LocalDateTime.of(2024, 7, 1, 13, 0, 0, 0));
+        subtask2.setDuration(30L);
+
+        taskManager.createTask(subtask1);
+        int subtaskId2 = taskManager.createTask(subtask2);
+
+        Subtask movedSubtask = new Subtask("Subtask 2", "Moved", TaskStatus.NEW, subtaskId2, epicId,
+                LocalDateTime.of(2024, 7, 1, 11, 0, 0, 0), 20L);
+        taskManager.updateTask(movedSubtask);
+
+        Epic epic = taskManager.getEpicById(epicId);
+        assertEquals(LocalDateTime.of(2024, 7, 1, 11, 0, 0, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 7, 1, 12, 10, 0, 0), epic.getEndTime());
+        assertEquals(30L, epic.getDuration());
+
+        taskManager.removeSubtaskById(subtask1.getId());
+        epic = taskManager.getEpicById(epicId);
+        assertEquals(LocalDateTime.of(2024, 7, 1, 11, 0, 0, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 7, 1, 11, 20, 0, 0), epic.getEndTime());
+        assertEquals(20L, epic.getDuration());
+
+        taskManager.removeSubtaskById(subtaskId2);
+        epic = taskManager.getEpicById(epicId);
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertNull(epic.getDuration());
+    }
+
+    @Test
+    void testPrioritizedTasksInTimeWindow() {
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 0, 0, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            taskManager.createTask(new Task("Task " + i, "Description", TaskStatus.NEW, null,
+                    start.plusHours(i), 30L));
+        }
+
+        List<Task> window = taskManager.getPrioritizedTasks(start.plusHours(2).plusMinutes(15), start.plusHours(5), 0);
+        assertEquals(3, window.size());
+        assertEquals(start.plusHours(2), window.getFirst().getStartTime());
+        assertEquals(start.plusHours(4), window.getLast().getStartTime());
+
+        List<Task> limited = taskManager.getPrioritizedTasks(start.plusHours(5), null, 2);
+        assertEquals(2, limited.size());
+        assertEquals(start.plusHours(5), limited.getFirst().getStartTime());
+
+        assertEquals(10, taskManager.getPrioritizedTasks(null, null, 0).size());
+        assertTrue(taskManager.getPrioritizedTasks(start.plusHours(5), start.plusHours(2), 0).isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks(start.plusHours(5), start.plusHours(5), 0).isEmpty());
+    }
+
+    @Test
+    void testFindFreeSlots() {
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 12, 0, 0, 0);
+        taskManager.createTask(new Task("Task 1", "Description", TaskStatus.NEW, null, start, 30L));
+        taskManager.createTask(new Task("Task 2", "Description", TaskStatus.NEW, null, start.plusMinutes(40), 30L));
+        taskManager.createTask(new Task("Task 3", "Description", TaskStatus.NEW, null, start.plusMinutes(120), 30L));
+
+        List<TimeSlot> slots = taskManager.findFreeSlots(20, start.plusMinutes(10), 3);
+
+        assertEquals(List.of(
+                new TimeSlot(start.plusMinutes(71), start.plusMinutes(120)),
+                new TimeSlot(start.plusMinutes(151), null)), slots);
+
+        LocalDateTime freeStart = taskManager.findFreeSlot(5, start.plusMinutes(10));
+        assertEquals(start.plusMinutes(31), freeStart);
+        taskManager.createTask(new Task("Task 4", "Description", TaskStatus.NEW, null, freeStart, 5L));
+    }
+
+    @Test
+    void testFindTasksPageByPage() {
+        for (int i = 0; i < 10; i++) {
+            taskManager.createTask(new Task("Task " + i, "Description", i % 2 == 0 ? TaskStatus.NEW : TaskStatus.DONE));
+        }
+        taskManager.createTask(epic1);
+        subtask1.setEpicId(epic1.getId());
+        subtask2.setEpicId(epic1.getId());
+        taskManager.createTask(subtask1);
+        taskManager.createTask(subtask2);
+
+        List<Task> firstPage = taskManager.findTasks(TaskType.TASK, null, null, null, 4);
+        assertEquals(List.of(1, 2, 3, 4), firstPage.stream().map(Task::getId).toList());
+        List<Task> lastPage = taskManager.findTasks(TaskType.TASK, null, null, 8, 4);
+        assertEquals(List.of(9, 10), lastPage.stream().map(Task::getId).toList());
+        assertEquals(firstPage, taskManager.findTasks(TaskType.TASK, null, null, -5, 4));
+
+        List<Task> done = taskManager.findTasks(TaskType.TASK, TaskStatus.DONE, null, 2, 0);
+        assertEquals(List.of(4, 6, 8, 10), done.stream().map(Task::getId).toList());
+
+        assertEquals(List.of(subtask1, subtask2), taskManager.findTasks(TaskType.SUBTASK, null, epic1.getId(), null, 0));
+        assertTrue(taskManager.findTasks(TaskType.SUBTASK, null, epic1.getId() + 100, null, 0).isEmpty());
+
+        // only one epic among many ids
+        List<Task> epics = taskManager.findTasks(TaskType.EPIC, null, null, null, 5);
+        assertEquals(List.of(epic1), epics);
+        assertTrue(taskManager.findTasks(TaskType.EPIC, null, null, epic1.getId(), 5).isEmpty());
+    }
+
+    @Test
+    void testBatchOperationsAreAllOrNothing() {
+        LocalDateTime start = LocalDateTime.of(2024, 7, 1, 12, 0, 0, 0);
+        Task first = new Task("Task 1", "Description", TaskStatus.NEW, null, start, 30L);
+        Task second = new Task("Task 2", "Description", TaskStatus.NEW, null, start.plusHours(1), 30L);
+        Task overlapping = new Task("Task 3", "Description", TaskStatus.NEW, null, start.plusMinutes(10), 10L);
+
+        assertThrows(PriorityTaskException.class, () -> taskManager.createAll(List.of(first, second, overlapping)));
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+
+        List<Integer> ids = taskManager.createAll(List.of(first, second, epic1));
+        assertEquals(List.of(first.getId(), second.getId(), epic1.getId()), ids);
+        assertEquals(2, taskManager.getPrioritizedTasks().size());
+
+        Task movedFirst = new Task("Task 1", "Description", TaskStatus.DONE, first.getId(), start.plusHours(1), 30L);
+        Task movedSecond = new Task("Task 2", "Description", TaskStatus.DONE, second.getId(), start, 30L);
+        Task missing = new Task("Task 4", "Description", TaskStatus.NEW, 1000, null, null);
+        assertThrows(TaskNotFoundException.class, () -> taskManager.updateAll(List.of(movedFirst, missing)));
+        assertEquals(TaskStatus.NEW, taskManager.getTaskById(first.getId()).getStatus());
+
+        taskManager.updateAll(List.of(movedFirst, movedSecond));
+        assertEquals(List.of(movedSecond, movedFirst), taskManager.getPrioritizedTasks());
+        assertEquals(TaskStatus.DONE, taskManager.getTaskById(first.getId()).getStatus());
+
+        assertThrows(TaskNotFoundException.class, () -> taskManager.removeAll(List.of(first.getId(), 1000)));
+        assertEquals(2, taskManager.getAllTasks().size());
+        taskManager.removeAll(List.of(first.getId(), second.getId(), epic1.getId()));
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        assertTrue(taskManager.getAllEpics().isEmpty());
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty());
+    }
 }
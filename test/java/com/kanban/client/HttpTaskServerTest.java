@@ -12,6 +12,8 @@ import com.kanban.exception.TaskNotFoundException;
 import com.kanban.tasks.Epic;
 import com.kanban.tasks.Subtask;
 import com.kanban.tasks.Task;
+import com.kanban.tasks.TimeSlot;
+import com.kanban.utils.ExecutionMode;
 import com.kanban.utils.TaskStatus;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,9 +27,11 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -95,6 +99,34 @@ class HttpTaskServerTest {
         assertEquals(expectedGson.toJson(Duration.ofMinutes(10)), gson.toJson(Duration.ofMinutes(10)));
     }
 
+    @Test
+    @DisplayName("test task codec round trip")
+    void testTaskCodec() {
+        subtask1.setStartTime(LocalDateTime.of(2024, 1, 12, 9, 0, 0));
+        subtask1.setDuration(15L);
+
+        String taskJson = gson.toJson(task1);
+        String subtaskJson = gson.toJson(subtask1);
+        String epicJson = gson.toJson(epic1);
+
+        assertEquals("{\"name\":\"Task 1\",\"description\":\"Task description 1\",\"status\":\"NEW\",\"id\":1,"
+                + "\"duration\":\"\",\"startTime\":\"\"}", taskJson);
+
+        Task task = gson.fromJson(taskJson, Task.class);
+        Subtask subtask = gson.fromJson(subtaskJson, Subtask.class);
+        Epic epic = gson.fromJson(epicJson, Epic.class);
+
+        assertEquals(task1.getName(), task.getName());
+        assertEquals(task1.getId(), task.getId());
+        assertEquals(subtask1.getEpicId(), subtask.getEpicId());
+        assertEquals(subtask1.getStartTime(), subtask.getStartTime());
+        assertEquals(subtask1.getDuration(), subtask.getDuration());
+        assertEquals(epic1.getSubTasks().stream().map(Task::getId).sorted().toList(),
+                epic.getSubTasks().stream().map(Task::getId).sorted().toList());
+        assertEquals(subtaskJson, gson.toJson(subtask));
+        assertEquals(gson.toJson(List.of(task1, subtask1)), "[" + taskJson + "," + subtaskJson + "]");
+    }
+
     @Test
     @DisplayName("test get all tasks method")
     void testGetTasks() throws IOException, InterruptedException {
@@ -645,6 +677,273 @@ class HttpTaskServerTest {
         HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
 
         assertEquals(gson.toJson(tasks), response.body());
+
+        HttpRequest recentRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history?limit=2"))
+                .GET()
+                .build();
+        HttpResponse<String> recentResponse = client.send(recentRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(gson.toJson(tasks.subList(1, 3)), recentResponse.body());
+    }
+
+    @Test
+    @DisplayName("serve parallel requests on virtual threads")
+    void testVirtualThreadsServer() throws IOException {
+        TaskManager plainManager = new InMemoryTaskManager(Managers.getDefaultHistory());
+        HttpTaskServer virtualThreadsServer = new HttpTaskServer(
+                plainManager, 8081, 128, ExecutionMode.VIRTUAL_THREADS);
+        virtualThreadsServer.start();
+        try {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Task task = new Task("Task " + i, "Task description", TaskStatus.NEW);
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8081/tasks"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task)))
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+
+            responses.forEach(response -> assertEquals(201, response.join().statusCode()));
+            List<Task> created = plainManager.getAllTasks();
+            assertEquals(50, created.size());
+            assertEquals(50, created.stream().map(Task::getId).distinct().count());
+        } finally {
+            virtualThreadsServer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("abort response when streaming fails")
+    void testStreamingFailureAbortsResponse() throws IOException {
+        TaskManager failingManager = new InMemoryTaskManager(Managers.getDefaultHistory()) {
+            @Override
+            public List<Task> getAllTasks() {
+                return new AbstractList<>() {
+                    @Override
+                    public Task get(int index) {
+                        if (index > 0) {
+                            throw new IllegalStateException("Task can't be read");
+                        }
+                        return task1;
+                    }
+
+                    @Override
+                    public int size() {
+                        return 2;
+                    }
+                };
+            }
+        };
+        HttpTaskServer failingServer = new HttpTaskServer(failingManager, 8081, 0, ExecutionMode.DISPATCHER_THREAD);
+        failingServer.start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8081/tasks"))
+                    .GET()
+                    .build();
+            assertThrows(IOException.class, () -> client.send(request, HttpResponse.BodyHandlers.ofString()));
+        } finally {
+            failingServer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("keep separate history for every user")
+    void testHistoryPerUser() throws IOException, InterruptedException {
+        TaskManager shardedManager = Managers.getConcurrent(
+                new InMemoryTaskManager(Managers.getShardedHistory(2, 0)));
+        int firstId = shardedManager.createTask(new Task("Task 1", "Task description 1", TaskStatus.NEW));
+        int secondId = shardedManager.createTask(new Task("Task 2", "Task description 2", TaskStatus.NEW));
+        int thirdId = shardedManager.createTask(new Task("Task 3", "Task description 3", TaskStatus.NEW));
+        HttpTaskServer shardedServer = new HttpTaskServer(shardedManager, 8082, 0, ExecutionMode.FIXED_THREAD_POOL);
+        shardedServer.start();
+        try {
+            for (int id : List.of(firstId, secondId, thirdId)) {
+                sendAsUser("alice", "tasks/" + id, "GET");
+            }
+            sendAsUser("bob", "tasks/" + secondId, "GET");
+
+            assertEquals(gson.toJson(List.of(shardedManager.getAllTasks().get(1), shardedManager.getAllTasks().get(2))),
+                    sendAsUser("alice", "history", "GET").body());
+            assertEquals(gson.toJson(List.of(shardedManager.getAllTasks().get(1))),
+                    sendAsUser("bob", "history", "GET").body());
+            assertEquals("[]", sendAsUser(null, "history", "GET").body());
+
+            sendAsUser("alice", "tasks/" + secondId, "DELETE");
+            assertEquals("[]", sendAsUser("bob", "history", "GET").body());
+        } finally {
+            shardedServer.stop();
+        }
+    }
+
+    private HttpResponse<String> sendAsUser(String user, String path, String method)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8082/" + path))
+                .method(method, HttpRequest.BodyPublishers.noBody());
+        if (user != null) {
+            builder.header(UserFilter.USER_HEADER, user);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("get prioritized tasks in time window")
+    void testPrioritizedTasksInWindow() throws IOException, InterruptedException {
+        task1.setStartTime(LocalDateTime.of(2024, 8, 18, 12, 0, 0));
+        task1.setDuration(10L);
+        task2.setStartTime(LocalDateTime.of(2024, 8, 19, 12, 0, 0));
+        task2.setDuration(10L);
+        taskManager.updateTask(task1);
+        taskManager.updateTask(task2);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2024-08-19T00:00:00&to=2024-08-20T00:00:00&limit=5"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(List.of(task2)), response.body());
+
+        HttpRequest wrongRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=yesterday"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(wrongRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest reversedRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2024-08-20T00:00:00&to=2024-08-19T00:00:00"))
+                .GET()
+                .build();
+        HttpResponse<String> reversedResponse = client.send(reversedRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, reversedResponse.statusCode());
+        assertEquals("[]", reversedResponse.body());
+    }
+
+    @Test
+    @DisplayName("get free slots")
+    void testFreeSlots() throws IOException, InterruptedException {
+        task1.setStartTime(LocalDateTime.of(2024, 8, 18, 12, 0, 0));
+        task1.setDuration(60L);
+        taskManager.updateTask(task1);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/slots?duration=30&from=2024-08-18T11:00:00&count=2"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(List.of(
+                new TimeSlot(LocalDateTime.of(2024, 8, 18, 11, 0, 0), LocalDateTime.of(2024, 8, 18, 12, 0, 0)),
+                new TimeSlot(LocalDateTime.of(2024, 8, 18, 13, 1, 0), null))), response.body());
+
+        HttpRequest wrongRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/slots"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(wrongRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @DisplayName("get large list of tasks in chunks")
+    void testGetManyTasks() throws IOException, InterruptedException {
+        for (int i = 0; i < 5000; i++) {
+            taskManager.createTask(new Task("Task " + i, "Task description " + i, TaskStatus.NEW));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(gson.toJson(taskManager.getAllTasks()), response.body());
+    }
+
+    @Test
+    @DisplayName("get page of tasks with selected fields")
+    void testGetTasksPage() throws IOException, InterruptedException {
+        Task task3 = new Task("Task 3", "Task description 3", TaskStatus.IN_PROGRESS);
+        taskManager.createTask(task3);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?after=" + task1.getId() + "&limit=1&fields=id,name"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[{\"name\":\"Task 2\",\"id\":" + task2.getId() + "}]", response.body());
+        assertEquals(String.valueOf(task2.getId()), response.headers().firstValue("X-Next-After").orElse(null));
+
+        HttpRequest statusRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?status=in_progress"))
+                .GET()
+                .build();
+        assertEquals(gson.toJson(List.of(task3)),
+                client.send(statusRequest, HttpResponse.BodyHandlers.ofString()).body());
+
+        HttpRequest epicRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/subtasks?epic=" + epic1.getId() + "&fields=id"))
+                .GET()
+                .build();
+        assertEquals("[{\"id\":" + subtask1.getId() + "},{\"id\":" + subtask2.getId() + "}]",
+                client.send(epicRequest, HttpResponse.BodyHandlers.ofString()).body());
+
+        HttpRequest wrongRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/epics?limit=many"))
+                .GET()
+                .build();
+        assertEquals(400, client.send(wrongRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
     }
 
+    @Test
+    @DisplayName("create, update and remove tasks in batch")
+    void testBatch() throws IOException, InterruptedException {
+        String body = "{\"tasks\":[{\"name\":\"Task 3\",\"description\":\"Description\",\"status\":\"NEW\","
+                + "\"duration\":30,\"startTime\":\"2024-08-20T12:00:00\"}],"
+                + "\"subtasks\":[{\"epicId\":" + epic2.getId() + ",\"name\":\"Subtask 3\","
+                + "\"description\":\"Description\",\"status\":\"DONE\"}]}";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, response.statusCode());
+        assertEquals(3, taskManager.getAllSubtasks().size());
+        assertEquals(TaskStatus.DONE, taskManager.getEpicById(epic2.getId()).getStatus());
+        Task created = taskManager.getPrioritizedTasks().getFirst();
+        assertEquals("[" + created.getId() + "," + (created.getId() + 1) + "]", response.body());
+
+        String overlapping = "{\"tasks\":[{\"name\":\"Task 4\",\"description\":\"Description\",\"status\":\"NEW\","
+                + "\"duration\":30,\"startTime\":\"2024-08-21T12:00:00\"},"
+                + "{\"name\":\"Task 5\",\"description\":\"Description\",\"status\":\"NEW\","
+                + "\"duration\":30,\"startTime\":\"2024-08-20T12:10:00\"}]}";
+        HttpRequest wrongRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(overlapping))
+                .build();
+        assertEquals(406, client.send(wrongRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(3, taskManager.getAllTasks().size());
+
+        HttpRequest malformedRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"tasks\":[{\"name\" \"Task 6\"}"))
+                .build();
+        assertEquals(400, client.send(malformedRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/batch?ids=" + task1.getId() + "," + created.getId()))
+                .DELETE()
+                .build();
+        assertEquals(201, client.send(deleteRequest, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(List.of(task2), taskManager.getAllTasks());
+    }
 }